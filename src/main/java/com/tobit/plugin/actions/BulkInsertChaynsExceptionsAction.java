@@ -0,0 +1,87 @@
+package com.tobit.plugin.actions;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.tobit.plugin.controller.ChaynsExceptionController;
+import com.tobit.plugin.services.ChaynsNamespaceService;
+import com.tobit.plugin.services.TokenService;
+import com.tobit.plugin.views.BulkInsertChaynsExceptionPanel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+public class BulkInsertChaynsExceptionsAction extends AnAction {
+
+    public BulkInsertChaynsExceptionsAction() {
+        super("Insert Chayns Exceptions from Spec");
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        final Editor editor = e.getRequiredData(CommonDataKeys.EDITOR);
+        final Project project = e.getRequiredData(CommonDataKeys.PROJECT);
+
+        ChaynsExceptionController controller = new ChaynsExceptionController(project);
+
+        if (!controller.hasNamespace()) {
+            controller.showErrorDialog(null,
+                    "No ChaynsErrors namespace found. Add a namespace in appsettings.json to create exceptions.",
+                    "Missing Configuration");
+            return;
+        }
+
+        new BulkInsertDialog(project, editor, controller).show();
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        // Same conditions as the single insert action, read from cached state
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        Project project = e.getProject();
+
+        boolean enabled = editor != null && project != null &&
+                TokenService.getInstance(project).isLoggedIn() &&
+                ChaynsNamespaceService.getInstance(project).hasNamespaces();
+
+        e.getPresentation().setEnabled(enabled);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    private static class BulkInsertDialog extends DialogWrapper {
+        private final BulkInsertChaynsExceptionPanel bulkPanel;
+
+        public BulkInsertDialog(Project project, Editor editor, ChaynsExceptionController controller) {
+            super(project, true);
+            bulkPanel = new BulkInsertChaynsExceptionPanel(controller, editor);
+            setTitle("Insert Chayns Exceptions from Spec");
+            init();
+        }
+
+        @Override
+        protected @Nullable JComponent createCenterPanel() {
+            return bulkPanel.getPanel();
+        }
+
+        @Override
+        protected Action @NotNull [] createActions() {
+            // Creation and insertion are handled by the panel's buttons
+            return new Action[] { getCancelAction() };
+        }
+
+        @Override
+        public void doCancelAction() {
+            bulkPanel.close();
+            super.doCancelAction();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.tobit.plugin.controller.ChaynsExceptionController;
+import com.tobit.plugin.services.ChaynsNamespaceService;
 import com.tobit.plugin.services.TokenService;
 import com.tobit.plugin.views.InsertChaynsExceptionPanel;
 import org.jetbrains.annotations.NotNull;
@@ -51,19 +52,17 @@ public class InsertChaynsExceptionAction extends AnAction {
         Editor editor = e.getData(CommonDataKeys.EDITOR);
         Project project = e.getProject();
 
-        boolean enabled = false;
-        if (editor != null && project != null &&
-                !TokenService.getInstance(project).getToken().isEmpty()) {
-            ChaynsExceptionController controller = new ChaynsExceptionController(project);
-            enabled = controller.hasNamespace();
-        }
+        // Both checks read cached state, so this is safe to run on every menu update
+        boolean enabled = editor != null && project != null &&
+                TokenService.getInstance(project).isLoggedIn() &&
+                ChaynsNamespaceService.getInstance(project).hasNamespaces();
 
         e.getPresentation().setEnabled(enabled);
     }
 
     @Override
     public @NotNull ActionUpdateThread getActionUpdateThread() {
-        return ActionUpdateThread.EDT;
+        return ActionUpdateThread.BGT;
     }
 
     private static class InsertExceptionDialog extends DialogWrapper {
@@ -8,7 +8,6 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
-import com.tobit.plugin.controller.PersonsController;
 import com.tobit.plugin.services.TokenService;
 import com.tobit.plugin.services.ViewManager;
 import com.tobit.plugin.views.PersonsPanel;
@@ -37,17 +36,12 @@ public class SearchPersonAction extends AnAction {
             if (toolWindow == null) return;
 
             toolWindow.show(() -> {
-                // Get the view from ViewManager
+                // Builds the tab on first use if it has not been opened yet
                 ViewManager viewManager = ViewManager.getInstance(project);
                 PersonsPanel personsView = viewManager.getView(PersonsPanel.class);
 
                 if (personsView != null) {
                     personsView.searchForText(selectedText.trim());
-                } else {
-                    // Fallback if view not found
-                    PersonsController controller = new PersonsController(project);
-                    PersonsPanel view = controller.createView();
-                    view.searchForText(selectedText.trim());
                 }
             });
         }
@@ -64,11 +58,11 @@ public class SearchPersonAction extends AnAction {
         boolean hasSelection = editor != null && editor.getSelectionModel().hasSelection();
 
         e.getPresentation().setEnabled(hasSelection && project != null &&
-                !TokenService.getInstance(project).getToken().isEmpty());
+                TokenService.getInstance(project).isLoggedIn());
     }
 
     @Override
     public @NotNull ActionUpdateThread getActionUpdateThread() {
-        return ActionUpdateThread.EDT;
+        return ActionUpdateThread.BGT;
     }
 }
\ No newline at end of file
@@ -8,7 +8,6 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
-import com.tobit.plugin.controller.SitesController;
 import com.tobit.plugin.services.TokenService;
 import com.tobit.plugin.services.ViewManager;
 import com.tobit.plugin.views.SitesPanel;
@@ -37,17 +36,12 @@ public class SearchSiteAction extends AnAction {
             if (toolWindow == null) return;
 
             toolWindow.show(() -> {
-                // Get the view from ViewManager
+                // Builds the tab on first use if it has not been opened yet
                 ViewManager viewManager = ViewManager.getInstance(project);
                 SitesPanel sitesView = viewManager.getView(SitesPanel.class);
 
                 if (sitesView != null) {
                     sitesView.searchForText(selectedText.trim());
-                } else {
-                    // Fallback if view not found
-                    SitesController controller = new SitesController(project);
-                    SitesPanel view = controller.createView();
-                    view.searchForText(selectedText.trim());
                 }
             });
         }
@@ -64,11 +58,11 @@ public class SearchSiteAction extends AnAction {
         boolean hasSelection = editor != null && editor.getSelectionModel().hasSelection();
 
         e.getPresentation().setEnabled(hasSelection && project != null &&
-                !TokenService.getInstance(project).getToken().isEmpty());
+                TokenService.getInstance(project).isLoggedIn());
     }
 
     @Override
     public @NotNull ActionUpdateThread getActionUpdateThread() {
-        return ActionUpdateThread.EDT;
+        return ActionUpdateThread.BGT;
     }
 }
\ No newline at end of file
@@ -1,29 +1,55 @@
 package com.tobit.plugin.controller;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.RangeMarker;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
 import com.intellij.openapi.project.Project;
 import com.tobit.plugin.models.ChaynsExceptionModel;
 import com.tobit.plugin.models.data.ApiResponse;
 import com.tobit.plugin.models.data.ExceptionItem;
+import com.tobit.plugin.models.data.ExceptionSpecRow;
+import com.tobit.plugin.services.BatchResolver;
+import com.tobit.plugin.services.ChaynsExceptionIndex;
+import com.tobit.plugin.services.ChaynsNamespaceService;
+import com.tobit.plugin.services.ErrorCodeCatalogService;
+import com.tobit.plugin.services.PluginDisposable;
+import com.tobit.plugin.services.PrefixTrie;
 import com.tobit.plugin.services.TokenService;
 import com.tobit.plugin.views.ChaynsExceptionPanel;
 import com.tobit.plugin.views.InsertChaynsExceptionPanel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 public class ChaynsExceptionController {
+    private static final int BULK_CONCURRENCY = 4;
+    private static final long BULK_REQUEST_INTERVAL_MS = 200; // at most 5 requests per second
+
     private final ChaynsExceptionModel model;
     private ChaynsExceptionPanel view;
     private final Project project;
     private final TokenService tokenService;
+    private final ErrorCodeCatalogService codeCatalog;
+    private final BatchResolver<ExceptionItem, ExceptionItem> bulkCreator =
+            new BatchResolver<>("ChaynsExceptions bulk create", BULK_CONCURRENCY);
+    private long nextBulkRequestAt;
 
     public ChaynsExceptionController(Project project) {
         this.project = project;
         this.model = new ChaynsExceptionModel(project);
         this.tokenService = TokenService.getInstance(project);
+        this.codeCatalog = ErrorCodeCatalogService.getInstance();
 
         model.addDataChangeListener((namespaces, selectedNamespace) -> {
             if (view != null) {
@@ -35,6 +61,11 @@ public class ChaynsExceptionController {
     public ChaynsExceptionPanel createView() {
         view = new ChaynsExceptionPanel(this);
         view.updateData(model.getNamespaces(), model.getSelectedNamespace());
+
+        // Keep the tool window in sync with edits to the appsettings files
+        project.getMessageBus().connect(PluginDisposable.getInstance(project))
+                .subscribe(ChaynsNamespaceService.NAMESPACES_CHANGED, namespaces ->
+                        ApplicationManager.getApplication().invokeLater(() -> model.setNamespaces(namespaces)));
         return view;
     }
 
@@ -43,42 +74,179 @@ public class ChaynsExceptionController {
     }
 
     public void insertException(Editor editor, String code) {
-        WriteCommandAction.runWriteCommandAction(project, () -> {
-            int offset = editor.getCaretModel().getOffset();
+        insertExceptionStatement(editor, code).dispose();
+    }
 
-            // Convert snake_case to PascalCase
-            String pascalCaseCode = convertToPascalCase(code);
+    /**
+     * Inserts the throw statement at the caret and returns a marker covering the inserted text.
+     */
+    private RangeMarker insertExceptionStatement(Editor editor, String code) {
+        RangeMarker[] marker = new RangeMarker[1];
+        WriteCommandAction.runWriteCommandAction(project, "Insert Chayns Exception", null, () -> {
+            Document document = editor.getDocument();
+            int offset = editor.getCaretModel().getOffset();
 
-            String exceptionCode = String.format("throw new %sException();", pascalCaseCode);
-            editor.getDocument().insertString(offset, exceptionCode);
+            // Convert snake_case to the PascalCase class name
+            String exceptionCode = String.format("throw new %s();", ChaynsExceptionIndex.toClassName(code));
+            document.insertString(offset, exceptionCode);
             editor.getCaretModel().moveToOffset(offset + exceptionCode.length());
+            marker[0] = document.createRangeMarker(offset, offset + exceptionCode.length());
         });
+        return marker[0];
     }
 
     /**
-     * Validates that a string is in snake_case format.
+     * Inserts the exception at once and creates it on the server in the background.
+     * If the server rejects it, the insertion is removed again by an undoable command.
      */
-    public boolean isValidSnakeCase(String text) {
-        return text.matches("^[a-z][a-z0-9]*(_[a-z0-9]+)*$");
+    public void submitException(Editor editor, ExceptionItem exceptionItem) {
+        String namespace = model.getSelectedNamespace();
+        String token = tokenService.getTobitDevToken();
+
+        RangeMarker marker = insertExceptionStatement(editor, exceptionItem.code());
+        String statement = marker.getDocument().getText(marker.getTextRange());
+
+        model.createExceptionAsync(exceptionItem, namespace, token).whenComplete((response, ex) ->
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (ex == null && response.isSuccess()) {
+                        codeCatalog.addCode(namespace, exceptionItem.code());
+                    } else {
+                        rollBackInsertion(marker, statement);
+                        showErrorDialog(null, ex != null
+                                ? "Error creating exception: " + (ex.getCause() != null ? ex.getCause() : ex)
+                                : describeCreateError(response), "Error");
+                    }
+                    marker.dispose();
+                }, project.getDisposed()));
+    }
+
+    private void rollBackInsertion(RangeMarker marker, String statement) {
+        Document document = marker.getDocument();
+
+        // Leave the text alone if it has been edited since it was inserted
+        if (!marker.isValid() || !statement.equals(document.getText(marker.getTextRange()))) return;
+
+        WriteCommandAction.runWriteCommandAction(project, "Roll Back Chayns Exception", null, () ->
+                document.deleteString(marker.getStartOffset(), marker.getEndOffset()));
+    }
+
+    /**
+     * Inserts one throw statement per code at the caret, as a single undoable command.
+     */
+    public void insertExceptions(Editor editor, List<String> codes) {
+        if (codes.isEmpty()) return;
+
+        WriteCommandAction.runWriteCommandAction(project, "Insert Chayns Exceptions", null, () -> {
+            int offset = editor.getCaretModel().getOffset();
+
+            List<String> statements = new ArrayList<>();
+            for (String code : codes) {
+                statements.add(String.format("throw new %s();", ChaynsExceptionIndex.toClassName(code)));
+            }
+            String text = String.join("\n", statements);
+
+            editor.getDocument().insertString(offset, text);
+            editor.getCaretModel().moveToOffset(offset + text.length());
+        });
     }
 
     /**
-     * Converts a snake_case string to PascalCase
+     * Applies the same rules as the single-exception dialog to every entry of a bulk spec,
+     * and rejects names that repeat within the spec or already exist in the selected namespace.
      */
-    private String convertToPascalCase(String snakeCase) {
-        StringBuilder result = new StringBuilder();
-        boolean capitalizeNext = true;
-
-        for (char c : snakeCase.toCharArray()) {
-            if (c == '_') {
-                capitalizeNext = true;
-            } else {
-                result.append(capitalizeNext ? Character.toUpperCase(c) : c);
-                capitalizeNext = false;
+    public List<ExceptionSpecRow> validateSpec(List<ExceptionSpecRow> rows) {
+        Set<String> names = new HashSet<>();
+        List<ExceptionSpecRow> validated = new ArrayList<>();
+
+        for (ExceptionSpecRow row : rows) {
+            ExceptionItem item = row.item();
+            if (item == null || row.error() != null) {
+                validated.add(row);
+                continue;
+            }
+
+            String error = null;
+            if (item.code().isEmpty()) {
+                error = "Name is required";
+            } else if (!isValidSnakeCase(item.code())) {
+                error = "Name must be in snake_case";
+            } else if (item.description().isEmpty()) {
+                error = "Description is required";
+            } else if (item.message().isEmpty()) {
+                error = "Message is required";
+            } else if (!names.add(item.code())) {
+                error = "Name appears more than once";
+            } else if (isExistingCode(item.code())) {
+                error = "Code already exists";
             }
+            validated.add(error == null ? row : row.withError(error));
         }
+        return validated;
+    }
 
-        return result.toString();
+    /**
+     * Creates the exceptions in the selected namespace concurrently, with a bounded number of
+     * requests in flight and a minimum spacing between them. The listener is called per item.
+     * Once {@code cancelled} returns true, items whose request has not been sent yet fail as cancelled.
+     */
+    public CompletableFuture<List<BatchResolver.Result<ExceptionItem, ExceptionItem>>> createExceptions(
+            List<ExceptionItem> items, BatchResolver.ResultListener<ExceptionItem, ExceptionItem> listener,
+            BooleanSupplier cancelled) {
+        String namespace = model.getSelectedNamespace();
+        String token = tokenService.getTobitDevToken();
+
+        return bulkCreator.resolveAll(items, item -> {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Cancelled");
+            }
+            awaitBulkRequestSlot();
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Cancelled");
+            }
+
+            ApiResponse response = model.createException(item, namespace, token);
+            if (!response.isSuccess()) {
+                throw new IOException(describeCreateError(response));
+            }
+            codeCatalog.addCode(namespace, item.code());
+            return item;
+        }, listener);
+    }
+
+    /**
+     * Turns a failed create response into a message for the user.
+     */
+    public String describeCreateError(ApiResponse response) {
+        if (response.isTransportError()) {
+            return "Error creating exception: request failed (HTTP " + response.statusCode() + "): " + response.error();
+        }
+        if (response.data().contains("chayns/auth/package/at_least_one_group_required")) {
+            return "You are not allowed to create an exception. Contact an administrator of dev.tobit.com";
+        }
+        if (response.data().isEmpty()) {
+            return "Error creating exception: HTTP " + response.statusCode();
+        }
+        return "Error creating exception: " + response.data();
+    }
+
+    private void awaitBulkRequestSlot() throws InterruptedException {
+        long waitMs;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, nextBulkRequestAt);
+            nextBulkRequestAt = slot + BULK_REQUEST_INTERVAL_MS;
+            waitMs = slot - now;
+        }
+        if (waitMs > 0) {
+            Thread.sleep(waitMs);
+        }
+    }
+
+    /**
+     * Validates that a string is in snake_case format.
+     */
+    public boolean isValidSnakeCase(String text) {
+        return text.matches("^[a-z][a-z0-9]*(_[a-z0-9]+)*$");
     }
 
     public void reloadData() {
@@ -89,6 +257,10 @@ public class ChaynsExceptionController {
         return model.getNamespaces();
     }
 
+    public List<String> getNamespaceSources(String namespace) {
+        return model.getNamespaceSources(namespace);
+    }
+
     public String getSelectedNamespace() {
         return model.getSelectedNamespace();
     }
@@ -97,9 +269,55 @@ public class ChaynsExceptionController {
         model.setSelectedNamespace(namespace);
     }
 
-    public ApiResponse createException(ExceptionItem exceptionItem) {
-        String token = tokenService.getTobitDevToken();
-        return model.createException(exceptionItem, token);
+    /**
+     * Whether a code with this name already exists in the selected namespace, according to the local catalog.
+     */
+    public boolean isExistingCode(String name) {
+        return codeCatalog.contains(model.getSelectedNamespace(), name);
+    }
+
+    /**
+     * Places in the project where the code is thrown, according to the usage index.
+     * Queries the index, so call it from a non-blocking read action, not directly on the EDT.
+     */
+    public List<ChaynsExceptionIndex.Usage> findUsages(String name) {
+        return ChaynsExceptionIndex.findUsages(project, name);
+    }
+
+    public void navigateToUsage(ChaynsExceptionIndex.Usage usage) {
+        new OpenFileDescriptor(project, usage.file(), usage.offset()).navigate(true);
+    }
+
+    public boolean isCodeCatalogLoaded() {
+        return codeCatalog.isLoaded(model.getSelectedNamespace());
+    }
+
+    public boolean isCodeCatalogUnavailable() {
+        return codeCatalog.isUnavailable(model.getSelectedNamespace());
+    }
+
+    /**
+     * Builds a completion trie of the code names known for the selected namespace and the codes
+     * already thrown in the project. Queries the index, so call it from a non-blocking read action.
+     */
+    public PrefixTrie buildCodeTrie() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.addAll(codeCatalog.getNames(model.getSelectedNamespace()));
+
+        for (String code : ChaynsExceptionIndex.findAllCodes(project)) {
+            // Class names with digits or separators may not map back to a valid code
+            if (isValidSnakeCase(code)) {
+                trie.add(code);
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * Refreshes the catalog of existing codes for the selected namespace in the background.
+     */
+    public CompletableFuture<Void> refreshCodeCatalog() {
+        return codeCatalog.refreshAsync(model.getSelectedNamespace(), tokenService.getTobitDevToken());
     }
 
     public void showDocumentation() {
@@ -1,25 +1,68 @@
 // src/main/java/com/tobit/plugin/controller/LoginController.java
 package com.tobit.plugin.controller;
 
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
 import com.tobit.plugin.services.TokenService;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class LoginController {
+    private final Project project;
     private final TokenService tokenService;
 
     public LoginController(Project project) {
+        this.project = project;
         this.tokenService = TokenService.getInstance(project);
     }
 
-    public boolean getToken() {
-        return tokenService.remoteLogin();
+    /**
+     * Runs the remote login as a cancellable background task.
+     * The callback is invoked on the EDT with whether the login succeeded.
+     */
+    public void login(Consumer<Boolean> onFinished) {
+        new Task.Backgroundable(project, "Logging in to chayns", true) {
+            private boolean success;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                indicator.setText("Waiting for login approval in the browser...");
+
+                CompletableFuture<Boolean> login = tokenService.remoteLoginAsync();
+                try {
+                    Boolean result = ProgressIndicatorUtils.awaitWithCheckCanceled(login, indicator);
+                    success = result != null && result;
+                } catch (ProcessCanceledException e) {
+                    login.cancel(true);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                onFinished.accept(success);
+            }
+
+            @Override
+            public void onCancel() {
+                onFinished.accept(false);
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                error.printStackTrace();
+                onFinished.accept(false);
+            }
+        }.queue();
     }
 
     public void addTokenChangeListener(TokenService.TokenChangeListener listener) {
         tokenService.addTokenChangeListener(listener);
     }
-
-    public void removeTokenChangeListener(TokenService.TokenChangeListener listener) {
-        tokenService.removeTokenChangeListener(listener);
-    }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.tobit.plugin.controller;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.tobit.plugin.models.PersonModel;
 import com.tobit.plugin.models.data.Person;
@@ -58,6 +59,13 @@ public class PersonsController {
             }
         });
 
+        // Report lookups that failed during a search
+        model.addLookupFailureListener(failures -> {
+            if (view != null) {
+                view.showWarning("Could not resolve " + failures.size() + " lookup(s):\n" + String.join("\n", failures));
+            }
+        });
+
         // Add token change listener to reload sites when user logs in
         tokenService.addTokenChangeListener(this::handleTokenChange);
     }
@@ -88,10 +96,8 @@ public class PersonsController {
     }
 
     private void handleTokenChange(String newToken) {
-        // When the user logs in (token becomes available), reload the sites
-        if (newToken != null && !newToken.isEmpty()) {
-            model.loadSavedPersons();
-        }
+        // Token changes arrive off the EDT; the model clears the lists on logout and reloads them on login
+        ApplicationManager.getApplication().invokeLater(model::handleSessionChange);
     }
 
     /**
@@ -170,6 +176,8 @@ public class PersonsController {
      * Saves a person to favorites
      */
     public void savePerson(Person person) {
+        // Rows that are still loading have no data to save yet
+        if (person.isPending()) return;
         model.addSavedPerson(person);
     }
 
@@ -208,6 +216,9 @@ public class PersonsController {
         List<Person> searchResults = model.getSearchResults();
 
         for (Person person : searchResults) {
+            // Rows still being looked up have nothing to copy yet
+            if (person.isPending()) continue;
+
             switch (columnIndex) {
                 case 0 -> columnValues.add(person.userName());
                 case 1 -> columnValues.add(person.personId());
@@ -1,18 +1,18 @@
 package com.tobit.plugin.controller;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.tobit.plugin.models.SitesModel;
-import com.tobit.plugin.models.data.LocationItem;
+import com.tobit.plugin.models.data.Site;
 import com.tobit.plugin.services.TokenService;
 import com.tobit.plugin.views.SitesPanel;
-import org.json.JSONObject;
 
 import java.awt.Desktop;
 import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -29,19 +29,11 @@ public class SitesController {
         // Register as listener for model data changes
         model.addDataChangeListener((savedSites, searchResults) -> {
             if (view != null) {
-                List<JSONObject> results = searchResults;
+                List<Site> results = searchResults;
 
                 // Apply duplicate filtering if enabled
                 if (filterDuplicatesEnabled && !results.isEmpty()) {
-                    // Filter out duplicates based on siteId
-                    Map<String, JSONObject> uniqueSites = new HashMap<>();
-                    for (JSONObject site : results) {
-                        String siteId = site.optString("siteId", "");
-                        if (!siteId.isEmpty() && !uniqueSites.containsKey(siteId)) {
-                            uniqueSites.put(siteId, site);
-                        }
-                    }
-                    results = new ArrayList<>(uniqueSites.values());
+                    results = filterDuplicates(results);
                 }
 
                 view.updateData(savedSites, results);
@@ -53,6 +45,13 @@ public class SitesController {
             }
         });
 
+        // Report lookups that failed during a search
+        model.addLookupFailureListener(failures -> {
+            if (view != null) {
+                view.showWarning("Could not resolve " + failures.size() + " lookup(s):\n" + String.join("\n", failures));
+            }
+        });
+
         // Add token change listener to reload sites when user logs in
         tokenService.addTokenChangeListener(this::handleTokenChange);
     }
@@ -65,18 +64,10 @@ public class SitesController {
         this.filterDuplicatesEnabled = filterEnabled;
 
         // If we have search results, refresh the view with filtered/unfiltered results
-        List<JSONObject> currentResults = model.getSearchResults();
+        List<Site> currentResults = model.getSearchResults();
         if (view != null && !currentResults.isEmpty()) {
             if (filterDuplicatesEnabled) {
-                // Filter out duplicates based on siteId
-                Map<String, JSONObject> uniqueSites = new HashMap<>();
-                for (JSONObject site : currentResults) {
-                    String siteId = site.optString("siteId", "");
-                    if (!siteId.isEmpty() && !uniqueSites.containsKey(siteId)) {
-                        uniqueSites.put(siteId, site);
-                    }
-                }
-                view.updateData(model.getSavedSites(), new ArrayList<>(uniqueSites.values()));
+                view.updateData(model.getSavedSites(), filterDuplicates(currentResults));
             } else {
                 view.updateData(model.getSavedSites(), currentResults);
             }
@@ -84,10 +75,8 @@ public class SitesController {
     }
 
     private void handleTokenChange(String newToken) {
-        // When the user logs in (token becomes available), reload the sites
-        if (newToken != null && !newToken.isEmpty()) {
-            model.loadSavedSites();
-        }
+        // Token changes arrive off the EDT; the model clears the lists on logout and reloads them on login
+        ApplicationManager.getApplication().invokeLater(model::handleSessionChange);
     }
 
     public SitesPanel createView() {
@@ -167,14 +156,9 @@ public class SitesController {
         }
     }
 
-    public void saveSite(JSONObject site) {
-        String locationName = site.optString("locationName", site.optString("name", ""));
-        int locationId = site.optInt("locationId", 0);
-        String siteId = site.optString("siteId", "");
-        String locationPersonId = site.optString("locationPersonId", "");
-
-        if (locationId > 0) {
-            model.addSavedSite(new LocationItem(locationName, locationId, siteId, locationPersonId));
+    public void saveSite(Site site) {
+        if (site.locationId() > 0 && !site.pending()) {
+            model.addSavedSite(site.toLocationItem());
         }
     }
 
@@ -212,35 +196,49 @@ public class SitesController {
 
     public List<String> getColumnValues(int columnIndex) {
         List<String> columnValues = new ArrayList<>();
-        List<JSONObject> searchResults = model.getSearchResults();
+        List<Site> searchResults = model.getSearchResults();
+
+        for (Site site : searchResults) {
+            // Rows still being looked up have nothing to copy yet
+            if (site.pending()) continue;
 
-        for (JSONObject site : searchResults) {
             switch (columnIndex) {
-                case 0 -> columnValues.add(site.optString("locationName", site.optString("name", "")));
-                case 1 -> columnValues.add(site.optString("siteId", ""));
-                case 2 -> columnValues.add(Integer.toString(site.optInt("locationId", 0)));
-                case 3 -> columnValues.add(site.optString("locationPersonId", ""));
+                case 0 -> columnValues.add(site.locationName());
+                case 1 -> columnValues.add(site.siteId());
+                case 2 -> columnValues.add(Integer.toString(site.locationId()));
+                case 3 -> columnValues.add(site.locationPersonId());
             }
         }
 
         return columnValues;
     }
 
-    public List<JSONObject> getSearchResults() {
-        List<JSONObject> results = model.getSearchResults();
+    public List<Site> getSearchResults() {
+        List<Site> results = model.getSearchResults();
 
         if (filterDuplicatesEnabled && !results.isEmpty()) {
-            // Filter out duplicates based on siteId
-            Map<String, JSONObject> uniqueSites = new HashMap<>();
-            for (JSONObject site : results) {
-                String siteId = site.optString("siteId", "");
-                if (!siteId.isEmpty() && !uniqueSites.containsKey(siteId)) {
-                    uniqueSites.put(siteId, site);
-                }
-            }
-            return new ArrayList<>(uniqueSites.values());
+            return filterDuplicates(results);
         }
 
         return results;
     }
+
+    /**
+     * Filters out duplicates based on siteId, keeping the first occurrence in result order.
+     * Rows that are still loading are kept, as their siteId may not be known yet.
+     */
+    private List<Site> filterDuplicates(List<Site> results) {
+        Map<String, Site> uniqueSites = new LinkedHashMap<>();
+        List<Site> filtered = new ArrayList<>();
+        for (Site site : results) {
+            String siteId = site.siteId();
+            if (site.pending()) {
+                filtered.add(site);
+            } else if (!siteId.isEmpty() && !uniqueSites.containsKey(siteId)) {
+                uniqueSites.put(siteId, site);
+                filtered.add(site);
+            }
+        }
+        return filtered;
+    }
 }
\ No newline at end of file
@@ -1,26 +1,23 @@
 package com.tobit.plugin.models;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VirtualFile;
 import com.tobit.plugin.models.data.ExceptionItem;
 import com.tobit.plugin.services.ApiService;
 import com.tobit.plugin.models.data.ApiResponse;
+import com.tobit.plugin.services.ChaynsNamespaceService;
+import org.json.JSONObject;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ChaynsExceptionModel {
     private final Project project;
     private final List<String> namespaces = new ArrayList<>();
     private String selectedNamespace = "";
-    private final ApiService apiService = new ApiService();
+    private final ApiService apiService = ApiService.getInstance();
+    private final ChaynsNamespaceService namespaceService;
 
     private final List<DataChangeListener> dataChangeListeners = new ArrayList<>();
 
@@ -30,7 +27,8 @@ public class ChaynsExceptionModel {
 
     public ChaynsExceptionModel(Project project) {
         this.project = project;
-        loadNamespacesFromAppSettings();
+        this.namespaceService = ChaynsNamespaceService.getInstance(project);
+        setNamespaces(namespaceService.getNamespaces());
     }
 
     public void addDataChangeListener(DataChangeListener listener) {
@@ -47,68 +45,28 @@ public class ChaynsExceptionModel {
         }
     }
 
-    private void loadNamespacesFromAppSettings() {
+    public void setNamespaces(List<String> loaded) {
         namespaces.clear();
-        VirtualFile appSettingsFile = findFileInProject("appsettings.json");
-        if (appSettingsFile != null) {
-            try {
-                String content = new String(appSettingsFile.contentsToByteArray(), StandardCharsets.UTF_8);
-                Gson gson = new Gson();
-                JsonObject jsonObject = gson.fromJson(content, JsonObject.class);
-
-                if (jsonObject.has("ChaynsErrors") &&
-                        jsonObject.getAsJsonObject("ChaynsErrors").has("Namespaces")) {
-                    JsonArray namespacesArray = jsonObject.getAsJsonObject("ChaynsErrors")
-                            .getAsJsonArray("Namespaces");
-
-                    for (JsonElement element : namespacesArray) {
-                        namespaces.add(element.getAsString());
-                    }
-
-                    if (!namespaces.isEmpty()) {
-                        selectedNamespace = namespaces.get(0);
-                    }
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        notifyDataChanged();
-    }
-
-    private VirtualFile findFileInProject(String fileName) {
-        VirtualFile baseDir = project.getBaseDir();
-        return findFileRecursively(baseDir, fileName);
-    }
-
-    private VirtualFile findFileRecursively(VirtualFile directory, String fileName) {
-        if (directory == null || !directory.exists() || !directory.isDirectory()) {
-            return null;
-        }
-
-        // Check if file exists in current directory
-        VirtualFile targetFile = directory.findChild(fileName);
-        if (targetFile != null && targetFile.exists()) {
-            return targetFile;
-        }
+        namespaces.addAll(loaded);
 
-        // Recursively search in subdirectories
-        for (VirtualFile child : directory.getChildren()) {
-            if (child.isDirectory()) {
-                VirtualFile foundFile = findFileRecursively(child, fileName);
-                if (foundFile != null) {
-                    return foundFile;
-                }
-            }
+        // Keep the selection if the namespace still exists
+        if (!namespaces.isEmpty() && !namespaces.contains(selectedNamespace)) {
+            selectedNamespace = namespaces.get(0);
         }
-
-        return null;
+        notifyDataChanged();
     }
 
     public List<String> getNamespaces() {
         return Collections.unmodifiableList(namespaces);
     }
 
+    /**
+     * Project-relative paths of the appsettings files that declare the namespace.
+     */
+    public List<String> getNamespaceSources(String namespace) {
+        return namespaceService.getNamespaceSources().getOrDefault(namespace, Collections.emptyList());
+    }
+
     public String getSelectedNamespace() {
         return selectedNamespace;
     }
@@ -124,26 +82,33 @@ public class ChaynsExceptionModel {
         return !namespaces.isEmpty();
     }
 
+    /**
+     * Reads the namespaces again in the background; the result arrives through
+     * {@link ChaynsNamespaceService#NAMESPACES_CHANGED}.
+     */
     public void reload() {
-        loadNamespacesFromAppSettings();
+        namespaceService.reload();
     }
 
-    public ApiResponse createException(ExceptionItem exceptionItem, String token) {
+    public ApiResponse createException(ExceptionItem exceptionItem, String namespace, String token) {
+        return createExceptionAsync(exceptionItem, namespace, token).join();
+    }
+
+    public CompletableFuture<ApiResponse> createExceptionAsync(ExceptionItem exceptionItem, String namespace, String token) {
         // API call to create the exception
         String apiUrl = "https://webapi.tobit.com/chaynserrors/v1/Codes";
 
-        // Build JSON payload
-        String jsonBody = String.format(
-                "{\"code\":\"%s%s\",\"statusCode\":%d,\"description\":\"%s\",\"logLevel\":%d,\"textGer\":\"%s\"}",
-                selectedNamespace,
-                exceptionItem.code(),
-                exceptionItem.statusCode(),
-                exceptionItem.description(),
-                exceptionItem.LogLevel(),
-                exceptionItem.message()
-        );
-
-        return apiService.postRequest(apiUrl, jsonBody,
+        // Build JSON payload; JSONObject takes care of escaping quotes and special characters in the texts
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("code", namespace + exceptionItem.code());
+        requestBody.put("statusCode", exceptionItem.statusCode());
+        requestBody.put("description", exceptionItem.description());
+        if (exceptionItem.LogLevel() != null) {
+            requestBody.put("logLevel", exceptionItem.LogLevel().intValue());
+        }
+        requestBody.put("textGer", exceptionItem.message());
+
+        return apiService.postAsync(apiUrl, requestBody.toString(),
                 Collections.singletonMap("Authorization", "Bearer " + token));
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.tobit.plugin.models;
+
+import com.tobit.plugin.models.data.ExceptionItem;
+import com.tobit.plugin.models.data.ExceptionSpecRow;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a list of exceptions to create from a JSON or CSV spec.
+ * JSON is an array of objects (or an object with a "codes" array); CSV needs a header row.
+ * Both use the fields name, statusCode, logLevel, description and message.
+ * Entries that cannot be read are returned with an error instead of failing the whole spec.
+ */
+public final class ExceptionSpecParser {
+    private static final int DEFAULT_LOG_LEVEL = 2; // Info
+
+    private ExceptionSpecParser() {
+    }
+
+    public static List<ExceptionSpecRow> parse(String content, String fileName) {
+        // Excel and Notepad save UTF-8 with a byte order mark, which would end up in the first header
+        if (content.startsWith("\uFEFF")) {
+            content = content.substring(1);
+        }
+        String trimmed = content.trim();
+        boolean json = fileName.toLowerCase(Locale.ROOT).endsWith(".json")
+                || trimmed.startsWith("[") || trimmed.startsWith("{");
+        return json ? parseJson(trimmed) : parseCsv(content);
+    }
+
+    private static List<ExceptionSpecRow> parseJson(String content) {
+        List<ExceptionSpecRow> rows = new ArrayList<>();
+
+        Object root = new JSONTokener(content).nextValue();
+        JSONArray entries = root instanceof JSONObject object ? object.optJSONArray("codes") : null;
+        if (root instanceof JSONArray array) {
+            entries = array;
+        }
+        if (entries == null) {
+            throw new IllegalArgumentException("Expected a JSON array of codes");
+        }
+
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                rows.add(new ExceptionSpecRow(i + 1, "", null, "Entry is not an object"));
+                continue;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            for (String key : entry.keySet()) {
+                // A JSON null is a missing value, not the text "null"
+                fields.put(key.toLowerCase(Locale.ROOT), entry.isNull(key) ? "" : String.valueOf(entry.get(key)));
+            }
+            rows.add(toRow(i + 1, fields));
+        }
+        return rows;
+    }
+
+    private static List<ExceptionSpecRow> parseCsv(String content) {
+        List<ExceptionSpecRow> rows = new ArrayList<>();
+        String[] lines = content.split("\\r?\\n");
+
+        int headerIndex = 0;
+        while (headerIndex < lines.length && lines[headerIndex].isBlank()) {
+            headerIndex++;
+        }
+        if (headerIndex == lines.length) return rows;
+
+        // Spreadsheets with a German locale export semicolon separated files
+        String headerLine = lines[headerIndex];
+        char separator = headerLine.indexOf(';') >= 0 && headerLine.indexOf(',') < 0 ? ';' : ',';
+        List<String> header = splitCsvLine(headerLine, separator);
+
+        for (int i = headerIndex + 1; i < lines.length; i++) {
+            if (lines[i].isBlank()) continue;
+
+            List<String> values = splitCsvLine(lines[i], separator);
+            Map<String, String> fields = new HashMap<>();
+            for (int column = 0; column < header.size() && column < values.size(); column++) {
+                fields.put(header.get(column).trim().toLowerCase(Locale.ROOT), values.get(column));
+            }
+            rows.add(toRow(i + 1, fields));
+        }
+        return rows;
+    }
+
+    private static List<String> splitCsvLine(String line, char separator) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static ExceptionSpecRow toRow(int line, Map<String, String> fields) {
+        String name = fields.getOrDefault("name", fields.getOrDefault("code", "")).trim();
+        String description = fields.getOrDefault("description", "").trim();
+        String message = fields.getOrDefault("message", "").trim();
+
+        int statusCode;
+        try {
+            statusCode = Integer.parseInt(fields.getOrDefault("statuscode", "").trim());
+        } catch (NumberFormatException e) {
+            return new ExceptionSpecRow(line, name, null, "Status code must be a valid number");
+        }
+
+        Integer logLevel = parseLogLevel(fields.getOrDefault("loglevel", ""));
+        if (logLevel == null) {
+            return new ExceptionSpecRow(line, name, null, "Log level must be Info, Warn or Error");
+        }
+
+        return new ExceptionSpecRow(line, name, new ExceptionItem(name, description, statusCode, logLevel, message), null);
+    }
+
+    private static Integer parseLogLevel(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "" -> DEFAULT_LOG_LEVEL;
+            case "info", "2" -> 2;
+            case "warn", "warning", "3" -> 3;
+            case "error", "4" -> 4;
+            default -> null;
+        };
+    }
+}
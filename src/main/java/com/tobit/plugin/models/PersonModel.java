@@ -1,17 +1,24 @@
 package com.tobit.plugin.models;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.tobit.plugin.models.data.ApiResponse;
 import com.tobit.plugin.models.data.Person;
 import com.tobit.plugin.services.ApiService;
+import com.tobit.plugin.services.BatchResolver;
 import com.tobit.plugin.services.ChaynsCodesApiService;
+import com.tobit.plugin.services.PluginDisposable;
 import com.tobit.plugin.services.TokenService;
+import com.tobit.plugin.services.WriteBehindQueue;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -20,13 +27,30 @@ public class PersonModel {
     private final ChaynsCodesApiService chaynsCodesApi;
     private final ApiService apiHelper;
     private final TokenService tokenService;
+    private final WriteBehindQueue<List<Person>> savedPersonsWriter;
+
+    // Limits concurrent person lookups per search
+    private static final int MAX_PARALLEL_LOOKUPS = 6;
+    private final BatchResolver<String, Person> personResolver =
+            new BatchResolver<>("PersonModel lookups", MAX_PARALLEL_LOOKUPS);
 
     // Data stores
-    private List<Person> savedPersons = new ArrayList<>();
+    // Saved persons indexed by personId, in insertion order
+    private final Map<String, Person> savedPersons = new LinkedHashMap<>();
+    // User the saved persons belong to, empty when logged out (EDT only)
+    private String savedPersonsOwner;
+    // Whether the saved persons are the owner's full list, so edits can be uploaded as they are
+    private boolean savedPersonsKnown;
+    // Edits made before the owner's list was known; merged with it once it arrives
+    private boolean hasUnsyncedEdits;
+    // One slot per result row; a null slot is a failed lookup and is not shown
     private List<Person> searchResults = new ArrayList<>();
+    // Incremented per search so late results of an older search are dropped (EDT only)
+    private int searchGeneration = 0;
 
     // Listeners for data changes
     private final List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+    private final List<LookupFailureListener> lookupFailureListeners = new ArrayList<>();
 
     public interface DataChangeListener {
         void onDataChanged(List<Person> savedPersons, List<Person> searchResults);
@@ -34,10 +58,21 @@ public class PersonModel {
 
     // Initialize data
     public PersonModel(Project project) {
-        this.chaynsCodesApi = new ChaynsCodesApiService(project);
-        this.apiHelper = new ApiService();
+        this.chaynsCodesApi = ChaynsCodesApiService.getInstance();
+        this.apiHelper = ApiService.getInstance();
         this.tokenService = TokenService.getInstance(project);
 
+        // Uploads of the saved list are coalesced and flushed when the project closes
+        this.savedPersonsWriter = new WriteBehindQueue<>(chaynsCodesApi::savePersons, chaynsCodesApi::canSave);
+        Disposer.register(PluginDisposable.getInstance(project), savedPersonsWriter);
+
+        // Show the user's last known saved persons at once, then revalidate them in the background
+        this.savedPersonsOwner = chaynsCodesApi.getSessionOwner();
+        List<Person> cachedPersons = chaynsCodesApi.getCachedSavedPersons();
+        if (cachedPersons != null) {
+            applySavedPersons(cachedPersons);
+            savedPersonsKnown = true;
+        }
         loadSavedPersons();
     }
 
@@ -50,81 +85,193 @@ public class PersonModel {
     }
 
     private void notifyDataChanged() {
+        List<Person> results = getSearchResults();
         for (DataChangeListener listener : dataChangeListeners) {
-            listener.onDataChanged(savedPersons, searchResults);
+            listener.onDataChanged(getSavedPersons(), results);
         }
     }
 
+    /**
+     * Revalidates the saved persons in the background and applies the changes on the EDT.
+     */
     public void loadSavedPersons() {
-        savedPersons = new ArrayList<>(chaynsCodesApi.getSavedPersons());
-        notifyDataChanged();
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            // Write local changes first so the reload does not discard them
+            savedPersonsWriter.flush();
+
+            String owner = chaynsCodesApi.getSessionOwner();
+            List<Person> persons = chaynsCodesApi.fetchSavedPersons();
+            if (persons == null) return;
+
+            ApplicationManager.getApplication().invokeLater(() -> {
+                // Another user logged in while fetching
+                if (!owner.equals(savedPersonsOwner)) return;
+
+                if (hasUnsyncedEdits) {
+                    mergeSavedPersons(persons);
+                } else if (!savedPersonsWriter.hasPendingWrite()) {
+                    // Edits made while fetching win; they are uploaded next anyway
+                    applySavedPersons(persons);
+                }
+                savedPersonsKnown = true;
+            });
+        });
     }
 
-    private void savePersons() {
-        chaynsCodesApi.savePersons(savedPersons);
+    /**
+     * Handles a token change on the EDT. If the user logged out or another user logged in, the saved
+     * persons and any pending upload are dropped; then the current user's list is loaded.
+     */
+    public void handleSessionChange() {
+        String owner = chaynsCodesApi.getSessionOwner();
+        if (!owner.equals(savedPersonsOwner)) {
+            savedPersonsOwner = owner;
+            savedPersonsWriter.cancel();
+            savedPersonsKnown = false;
+            hasUnsyncedEdits = false;
+            savedPersons.clear();
+            clearSearchResults();
+        }
+
+        if (!owner.isEmpty()) {
+            loadSavedPersons();
+        }
     }
 
-    public void addSavedPerson(Person person) {
-        boolean exists = false;
-        for (Person saved : savedPersons) {
-            if (saved.personId().equals(person.personId())) {
-                exists = true;
-                break;
+    /**
+     * Adds the fetched persons to edits made before they arrived and uploads the combined list,
+     * so those edits neither replace the user's list nor get lost.
+     */
+    private void mergeSavedPersons(List<Person> persons) {
+        for (Person person : persons) {
+            savedPersons.putIfAbsent(person.personId(), person);
+        }
+        hasUnsyncedEdits = false;
+        savedPersonsKnown = true;
+        savePersons();
+        notifyDataChanged();
+    }
+
+    /**
+     * Applies only the differences to the given saved persons and notifies if anything changed.
+     * Persons that are already known keep their position.
+     */
+    private void applySavedPersons(List<Person> persons) {
+        Map<String, Person> latest = new LinkedHashMap<>();
+        for (Person person : persons) {
+            latest.putIfAbsent(person.personId(), person);
+        }
+
+        boolean changed = savedPersons.keySet().retainAll(latest.keySet());
+        for (Person person : latest.values()) {
+            Person previous = savedPersons.put(person.personId(), person);
+            if (!person.equals(previous)) {
+                changed = true;
             }
         }
 
-        if (!exists) {
-            savedPersons.add(person);
+        if (changed) {
+            notifyDataChanged();
+        }
+    }
+
+    private void savePersons() {
+        if (savedPersonsKnown) {
+            savedPersonsWriter.submit(getSavedPersons());
+        } else {
+            hasUnsyncedEdits = true;
+        }
+    }
+
+    public void addSavedPerson(Person person) {
+        if (!savedPersons.containsKey(person.personId())) {
+            savedPersons.put(person.personId(), person);
             savePersons();
             notifyDataChanged();
         }
     }
 
     public void removeSavedPerson(String personId) {
-        savedPersons.removeIf(person -> person.personId().equals(personId));
+        savedPersons.remove(personId);
         savePersons();
         notifyDataChanged();
     }
 
     public void searchPersons(String searchString) {
+        int generation = ++searchGeneration;
+
         if (tokenService.getToken().isEmpty()) {
             searchResults.clear();
             notifyDataChanged();
             return;
         }
 
-        searchResults = new ArrayList<>(getPersonsBySearchString(searchString));
-
-        notifyDataChanged();
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            List<Person> persons = getPersonsBySearchString(searchString);
+            applySearchUpdate(generation, () -> searchResults = new ArrayList<>(persons));
+        });
     }
 
     public void clearSearchResults() {
+        searchGeneration++;
         searchResults.clear();
         notifyDataChanged();
     }
 
     public List<Person> getSavedPersons() {
-        return new ArrayList<>(savedPersons);
+        return new ArrayList<>(savedPersons.values());
     }
 
     public List<Person> getSearchResults() {
-        return new ArrayList<>(searchResults);
+        List<Person> results = new ArrayList<>(searchResults.size());
+        for (Person person : searchResults) {
+            if (person != null) {
+                results.add(person);
+            }
+        }
+        return results;
     }
 
     public boolean isPersonSaved(String personId) {
-        for (Person person : savedPersons) {
-            if (person.personId().equals(personId)) {
-                return true;
-            }
-        }
-        return false;
+        return savedPersons.containsKey(personId);
     }
 
     public boolean isTokenEmpty() {
         return tokenService.getToken().isEmpty();
     }
 
+    public interface LookupFailureListener {
+        void onLookupFailed(List<String> failures);
+    }
+
+    public void addLookupFailureListener(LookupFailureListener listener) {
+        lookupFailureListeners.add(listener);
+    }
+
+    public void removeLookupFailureListener(LookupFailureListener listener) {
+        lookupFailureListeners.remove(listener);
+    }
+
+    private void notifyLookupFailures(List<BatchResolver.Result<String, Person>> results) {
+        List<String> failures = new ArrayList<>();
+        for (BatchResolver.Result<String, Person> result : results) {
+            if (result.isSuccess()) continue;
+
+            // Duplicate input IDs share one result, report them once
+            String failure = result.key() + ": " + result.error();
+            if (!failures.contains(failure)) {
+                failures.add(failure);
+            }
+        }
+        if (failures.isEmpty()) return;
+
+        for (LookupFailureListener listener : lookupFailureListeners) {
+            listener.onLookupFailed(failures);
+        }
+    }
+
     public void searchMultiplePersonIds(List<String> personIds) {
+        int generation = ++searchGeneration;
         searchResults.clear();
 
         if (tokenService.getToken().isEmpty()) {
@@ -132,50 +279,78 @@ public class PersonModel {
             return;
         }
 
-        List<Person> foundPersons = new ArrayList<>();
-
+        List<String> trimmedIds = new ArrayList<>();
         for (String personId : personIds) {
             String trimmedId = personId.trim();
             if (!trimmedId.isEmpty()) {
-                try {
-                    // Use the same URL pattern as in getPersonsBySearchString but with personId as search
-                    String url = "https://relations.chayns.net/relations/v2/person?searchString=" +
-                            URLEncoder.encode(trimmedId, StandardCharsets.UTF_8) +
-                            "&take=7&scoreForSite=1";
-
-                    Map<String, String> headers = new HashMap<>();
-                    headers.put("Authorization", "Bearer " + tokenService.getToken());
-
-                    ApiResponse response = apiHelper.getRequest(url, headers);
-
-                    if (response.isSuccess()) {
-                        JSONObject jsonResponse = new JSONObject(response.data());
-                        JSONArray list = jsonResponse.getJSONArray("list");
-
-                        // Find exact match for personId in results
-                        for (int i = 0; i < list.length(); i++) {
-                            JSONObject personJson = list.getJSONObject(i);
-                            String resultPersonId = personJson.getString("personId");
-
-                            if (resultPersonId.equals(trimmedId)) {
-                                Person person = new Person(
-                                        personJson.getString("firstName") + " " + personJson.getString("lastName"),
-                                        personJson.getString("personId"),
-                                        personJson.getInt("userId")
-                                );
-                                foundPersons.add(person);
-                                break;
-                            }
-                        }
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+                trimmedIds.add(trimmedId);
             }
         }
 
-        searchResults.addAll(foundPersons);
+        // Show a placeholder row per ID right away and fill it in as its lookup completes
+        for (String personId : trimmedIds) {
+            searchResults.add(Person.pending(personId));
+        }
         notifyDataChanged();
+
+        personResolver.resolveAll(
+                trimmedIds,
+                this::fetchPersonById,
+                // Failed lookups leave an empty slot, which is hidden from the results
+                (index, result) -> applySearchUpdate(generation, () -> searchResults.set(index, result.value()))
+        ).thenAccept(results -> runForSearch(generation, () -> notifyLookupFailures(results)));
+    }
+
+    /**
+     * Applies a change to the current search results on the EDT, unless a newer search has started since.
+     */
+    private void applySearchUpdate(int generation, Runnable update) {
+        runForSearch(generation, () -> {
+            update.run();
+            notifyDataChanged();
+        });
+    }
+
+    private void runForSearch(int generation, Runnable runnable) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (generation == searchGeneration) {
+                runnable.run();
+            }
+        });
+    }
+
+    /**
+     * Looks up a single person by exact personId, throwing with a readable reason on failure.
+     */
+    private Person fetchPersonById(String personId) throws IOException {
+        // Use the same URL pattern as in getPersonsBySearchString but with personId as search
+        String url = "https://relations.chayns.net/relations/v2/person?searchString=" +
+                URLEncoder.encode(personId, StandardCharsets.UTF_8) +
+                "&take=7&scoreForSite=1";
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Authorization", "Bearer " + tokenService.getToken());
+
+        ApiResponse response = apiHelper.getRequest(url, headers);
+        if (!response.isSuccess()) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+
+        JSONObject jsonResponse = new JSONObject(response.data());
+        JSONArray list = jsonResponse.getJSONArray("list");
+
+        // Find exact match for personId in results
+        for (int i = 0; i < list.length(); i++) {
+            JSONObject personJson = list.getJSONObject(i);
+            if (personJson.getString("personId").equals(personId)) {
+                return new Person(
+                        personJson.getString("firstName") + " " + personJson.getString("lastName"),
+                        personJson.getString("personId"),
+                        personJson.getInt("userId")
+                );
+            }
+        }
+        return null;
     }
 
     private List<Person> getPersonsBySearchString(String searchString) {
@@ -1,14 +1,23 @@
 package com.tobit.plugin.models;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.tobit.plugin.models.data.ApiResponse;
 import com.tobit.plugin.models.data.LocationItem;
+import com.tobit.plugin.models.data.Site;
 import com.tobit.plugin.services.ApiService;
+import com.tobit.plugin.services.BatchResolver;
 import com.tobit.plugin.services.ChaynsCodesApiService;
+import com.tobit.plugin.services.PluginDisposable;
+import com.tobit.plugin.services.SiteDetailsCache;
 import com.tobit.plugin.services.TokenService;
+import com.tobit.plugin.services.WriteBehindQueue;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -16,30 +25,64 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public class SitesModel {
     private final ChaynsCodesApiService chaynsCodesApi;
     private final ApiService apiHelper;
     private final TokenService tokenService;
+    private final WriteBehindQueue<List<LocationItem>> savedSitesWriter;
+    private final SiteDetailsCache siteCache;
+
+    // Limits concurrent locationSettings requests per search
+    private static final int MAX_PARALLEL_DETAIL_REQUESTS = 6;
+    private final BatchResolver<String, Site> siteResolver =
+            new BatchResolver<>("SitesModel lookups", MAX_PARALLEL_DETAIL_REQUESTS);
 
     // Data stores
-    private List<LocationItem> savedSites = new ArrayList<>();
-    private final List<JSONObject> searchResults = new ArrayList<>();
+    // Saved sites indexed by locationId, in insertion order
+    private final Int2ObjectLinkedOpenHashMap<LocationItem> savedSites = new Int2ObjectLinkedOpenHashMap<>();
+    // Immutable copies of the saved sites for lookups on worker threads; saved sites carry every
+    // displayed field, so searching for one needs no request and does not take space in the shared cache
+    private volatile Map<String, Site> savedSitesBySiteId = Map.of();
+    private volatile Map<Integer, Site> savedSitesByLocationId = Map.of();
+    // User the saved sites belong to, empty when logged out (EDT only)
+    private String savedSitesOwner;
+    // Whether the saved sites are the owner's full list, so edits can be uploaded as they are
+    private boolean savedSitesKnown;
+    // Edits made before the owner's list was known; merged with it once it arrives
+    private boolean hasUnsyncedEdits;
+    // One slot per result row; a null slot is a failed lookup and is not shown
+    private final List<Site> searchResults = new ArrayList<>();
+    // Incremented per search so late results of an older search are dropped (EDT only)
+    private int searchGeneration = 0;
 
     // Listeners for data changes
     private final List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+    private final List<LookupFailureListener> lookupFailureListeners = new ArrayList<>();
 
     public interface DataChangeListener {
-        void onDataChanged(List<LocationItem> savedSites, List<JSONObject> searchResults);
+        void onDataChanged(List<LocationItem> savedSites, List<Site> searchResults);
     }
 
     // Initialize data
     public SitesModel(Project project) {
-        this.chaynsCodesApi = new ChaynsCodesApiService(project);
-        this.apiHelper = new ApiService();
+        this.chaynsCodesApi = ChaynsCodesApiService.getInstance();
+        this.apiHelper = ApiService.getInstance();
         this.tokenService = TokenService.getInstance(project);
-
-        // Load saved sites on init
+        this.siteCache = SiteDetailsCache.getInstance();
+
+        // Uploads of the saved list are coalesced and flushed when the project closes
+        this.savedSitesWriter = new WriteBehindQueue<>(chaynsCodesApi::saveSites, chaynsCodesApi::canSave);
+        Disposer.register(PluginDisposable.getInstance(project), savedSitesWriter);
+
+        // Show the user's last known saved sites at once, then revalidate them in the background
+        this.savedSitesOwner = chaynsCodesApi.getSessionOwner();
+        List<LocationItem> cachedSites = chaynsCodesApi.getCachedSavedSites();
+        if (cachedSites != null) {
+            applySavedSites(cachedSites);
+            savedSitesKnown = true;
+        }
         loadSavedSites();
     }
 
@@ -52,34 +95,59 @@ public class SitesModel {
     }
 
     private void notifyDataChanged() {
+        List<Site> results = getSearchResults();
         for (DataChangeListener listener : dataChangeListeners) {
-            listener.onDataChanged(savedSites, searchResults);
+            listener.onDataChanged(getSavedSites(), results);
         }
     }
 
-    // Add to SitesModel.java
-    public void searchMultipleSiteIds(List<String> siteIds) {
-        searchResults.clear();
+    public interface LookupFailureListener {
+        void onLookupFailed(List<String> failures);
+    }
 
-        if (tokenService.getToken().isEmpty()) {
-            notifyDataChanged();
-            return;
-        }
+    public void addLookupFailureListener(LookupFailureListener listener) {
+        lookupFailureListeners.add(listener);
+    }
 
-        for (String siteId : siteIds) {
-            String trimmedId = siteId.trim();
-            if (!trimmedId.isEmpty()) {
-                JSONObject siteDetails = getSiteDetails(trimmedId);
-                if (siteDetails != null) {
-                    searchResults.add(siteDetails);
-                }
+    public void removeLookupFailureListener(LookupFailureListener listener) {
+        lookupFailureListeners.remove(listener);
+    }
+
+    private void notifyLookupFailures(List<BatchResolver.Result<String, Site>> results) {
+        List<String> failures = new ArrayList<>();
+        for (BatchResolver.Result<String, Site> result : results) {
+            if (result.isSuccess()) continue;
+
+            // Duplicate input IDs share one result, report them once
+            String failure = result.key() + ": " + result.error();
+            if (!failures.contains(failure)) {
+                failures.add(failure);
             }
         }
+        if (failures.isEmpty()) return;
 
-        notifyDataChanged();
+        for (LookupFailureListener listener : lookupFailureListeners) {
+            listener.onLookupFailed(failures);
+        }
+    }
+
+    private void notifyLookupFailures(String query, String reason) {
+        for (LookupFailureListener listener : lookupFailureListeners) {
+            listener.onLookupFailed(List.of(query + ": " + reason));
+        }
+    }
+
+    public void searchMultipleSiteIds(List<String> siteIds) {
+        searchMultiple(siteIds, this::fetchSiteBySiteId, Site::pendingSiteId);
     }
 
     public void searchMultipleLocationIds(List<String> locationIds) {
+        searchMultiple(locationIds, this::fetchSiteByLocationId, id -> Site.pendingLocationId(parseLocationId(id)));
+    }
+
+    private void searchMultiple(List<String> ids, BatchResolver.Lookup<String, Site> lookup,
+                                Function<String, Site> placeholderForId) {
+        int generation = ++searchGeneration;
         searchResults.clear();
 
         if (tokenService.getToken().isEmpty()) {
@@ -87,75 +155,193 @@ public class SitesModel {
             return;
         }
 
-        for (String locationId : locationIds) {
-            String trimmedId = locationId.trim();
+        List<String> trimmedIds = new ArrayList<>();
+        for (String id : ids) {
+            String trimmedId = id.trim();
             if (!trimmedId.isEmpty()) {
-                try {
-                    String url = "https://chaynssvc.tobit.com/v0.5/" + trimmedId + "/LocationSettings";
-                    JSONObject siteDetails = getSiteDetails(url);
-                    if (siteDetails != null) {
-                        searchResults.add(siteDetails);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+                trimmedIds.add(trimmedId);
             }
         }
 
+        // Show a placeholder row per ID right away and fill it in as its lookup completes
+        for (String id : trimmedIds) {
+            searchResults.add(placeholderForId.apply(id));
+        }
         notifyDataChanged();
+
+        siteResolver.resolveAll(
+                trimmedIds,
+                lookup,
+                // Failed lookups leave an empty slot, which is hidden from the results
+                (index, result) -> applySearchUpdate(generation, () -> searchResults.set(index, result.value()))
+        ).thenAccept(results -> runForSearch(generation, () -> notifyLookupFailures(results)));
+    }
+
+    /**
+     * Applies a change to the current search results on the EDT, unless a newer search has started since.
+     */
+    private void applySearchUpdate(int generation, Runnable update) {
+        runForSearch(generation, () -> {
+            update.run();
+            notifyDataChanged();
+        });
+    }
+
+    private void runForSearch(int generation, Runnable runnable) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (generation == searchGeneration) {
+                runnable.run();
+            }
+        });
     }
 
+    /**
+     * Revalidates the saved sites in the background and applies the changes on the EDT.
+     */
     public void loadSavedSites() {
-        savedSites = new ArrayList<>(chaynsCodesApi.getSavedSites());
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            // Write local changes first so the reload does not discard them
+            savedSitesWriter.flush();
+
+            String owner = chaynsCodesApi.getSessionOwner();
+            List<LocationItem> sites = chaynsCodesApi.fetchSavedSites();
+            if (sites == null) return;
+
+            ApplicationManager.getApplication().invokeLater(() -> {
+                // Another user logged in while fetching
+                if (!owner.equals(savedSitesOwner)) return;
+
+                if (hasUnsyncedEdits) {
+                    mergeSavedSites(sites);
+                } else if (!savedSitesWriter.hasPendingWrite()) {
+                    // Edits made while fetching win; they are uploaded next anyway
+                    applySavedSites(sites);
+                }
+                savedSitesKnown = true;
+            });
+        });
+    }
+
+    /**
+     * Handles a token change on the EDT. If the user logged out or another user logged in, the saved
+     * sites and any pending upload are dropped; then the current user's list is loaded.
+     */
+    public void handleSessionChange() {
+        String owner = chaynsCodesApi.getSessionOwner();
+        if (!owner.equals(savedSitesOwner)) {
+            savedSitesOwner = owner;
+            savedSitesWriter.cancel();
+            savedSitesKnown = false;
+            hasUnsyncedEdits = false;
+            savedSites.clear();
+            indexSavedSites();
+            clearSearchResults();
+        }
+
+        if (!owner.isEmpty()) {
+            loadSavedSites();
+        }
+    }
+
+    /**
+     * Adds the fetched sites to edits made before they arrived and uploads the combined list,
+     * so those edits neither replace the user's list nor get lost.
+     */
+    private void mergeSavedSites(List<LocationItem> sites) {
+        for (LocationItem site : sites) {
+            savedSites.putIfAbsent(site.getId(), site);
+        }
+        indexSavedSites();
+        hasUnsyncedEdits = false;
+        savedSitesKnown = true;
+        saveSitesToStorage();
         notifyDataChanged();
     }
 
-    private void saveSitesToStorage() {
-        chaynsCodesApi.saveSites(savedSites);
+    /**
+     * Applies only the differences to the given saved sites and notifies if anything changed.
+     * Sites that are already known keep their position.
+     */
+    private void applySavedSites(List<LocationItem> sites) {
+        Int2ObjectLinkedOpenHashMap<LocationItem> latest = new Int2ObjectLinkedOpenHashMap<>(sites.size());
+        for (LocationItem site : sites) {
+            latest.putIfAbsent(site.getId(), site);
+        }
+
+        boolean changed = savedSites.keySet().retainAll(latest.keySet());
+        for (LocationItem site : latest.values()) {
+            LocationItem previous = savedSites.put(site.getId(), site);
+            if (!site.equals(previous)) {
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            indexSavedSites();
+            notifyDataChanged();
+        }
     }
 
-    public void addSavedSite(LocationItem site) {
-        boolean exists = false;
-        for (LocationItem savedSite : savedSites) {
-            if (savedSite.getId() == site.getId()) {
-                exists = true;
-                break;
+    private void indexSavedSites() {
+        Map<String, Site> bySiteId = new HashMap<>();
+        Map<Integer, Site> byLocationId = new HashMap<>();
+        for (LocationItem item : savedSites.values()) {
+            Site site = Site.fromLocationItem(item);
+            if (site.siteId() != null && !site.siteId().isEmpty()) {
+                bySiteId.put(site.siteId(), site);
             }
+            byLocationId.put(site.locationId(), site);
         }
+        savedSitesBySiteId = Map.copyOf(bySiteId);
+        savedSitesByLocationId = Map.copyOf(byLocationId);
+    }
 
-        if (!exists) {
-            savedSites.add(site);
+    private void saveSitesToStorage() {
+        if (savedSitesKnown) {
+            savedSitesWriter.submit(getSavedSites());
+        } else {
+            hasUnsyncedEdits = true;
+        }
+    }
+
+    public void addSavedSite(LocationItem site) {
+        if (!savedSites.containsKey(site.getId())) {
+            savedSites.put(site.getId(), site);
+            indexSavedSites();
             saveSitesToStorage();
             notifyDataChanged();
         }
     }
 
     public void removeSavedSite(int locationId) {
-        savedSites.removeIf(site -> site.getId() == locationId);
+        savedSites.remove(locationId);
+        indexSavedSites();
         saveSitesToStorage();
         notifyDataChanged();
     }
 
     public void clearSearchResults() {
+        searchGeneration++;
         searchResults.clear();
         notifyDataChanged();
     }
 
     public List<LocationItem> getSavedSites() {
-        return Collections.unmodifiableList(savedSites);
+        return Collections.unmodifiableList(new ArrayList<>(savedSites.values()));
     }
 
-    public List<JSONObject> getSearchResults() {
-        return Collections.unmodifiableList(searchResults);
+    public List<Site> getSearchResults() {
+        List<Site> results = new ArrayList<>(searchResults.size());
+        for (Site site : searchResults) {
+            if (site != null) {
+                results.add(site);
+            }
+        }
+        return Collections.unmodifiableList(results);
     }
 
     public boolean isSiteSaved(int locationId) {
-        for (LocationItem site : savedSites) {
-            if (site.getId() == locationId) {
-                return true;
-            }
-        }
-        return false;
+        return savedSites.containsKey(locationId);
     }
 
     public boolean isTokenEmpty() {
@@ -167,95 +353,122 @@ public class SitesModel {
     }
 
     public void searchSitesByName(String query) {
+        int generation = ++searchGeneration;
+
         if (tokenService.getToken().isEmpty()) {
             searchResults.clear();
             notifyDataChanged();
             return;
         }
 
-        try {
-            String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-            String url = "https://relations.chayns.net/relations/location/?query=" + encodedQuery + "&skip=0&take=7";
-
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Authorization", "Bearer " + tokenService.getToken());
+        String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
+        String url = "https://relations.chayns.net/relations/location/?query=" + encodedQuery + "&skip=0&take=7";
 
-            ApiResponse response = apiHelper.getRequest(url, headers);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Authorization", "Bearer " + tokenService.getToken());
 
-            if (response.isSuccess()) {
-                JSONObject jsonResponse = new JSONObject(response.data());
-                JSONArray list = jsonResponse.getJSONArray("list");
-                searchResults.clear();
+        apiHelper.getAsync(url, headers).thenAccept(response -> {
+            if (!response.isSuccess()) {
+                applySearchUpdate(generation, searchResults::clear);
+                runForSearch(generation, () -> notifyLookupFailures(query, "HTTP " + response.statusCode()));
+                return;
+            }
 
-                // Process each site to get complete details
-                for (int i = 0; i < list.length(); i++) {
-                    JSONObject site = list.getJSONObject(i);
-                    String siteId = site.optString("siteId", "");
-
-                    if (!siteId.isEmpty()) {
-                        // Get detailed site info
-                        JSONObject detailedSite = getSiteDetails(siteId);
-                        if (detailedSite != null) {
-                            searchResults.add(detailedSite);
-                        } else {
-                            searchResults.add(site);
-                        }
-                    } else {
-                        searchResults.add(site);
-                    }
-                }
+            JSONObject jsonResponse = new JSONObject(response.data());
+            JSONArray list = jsonResponse.getJSONArray("list");
 
-                notifyDataChanged();
+            // Show the list entries right away, marked pending until their details arrive
+            List<Site> listEntries = new ArrayList<>();
+            List<String> siteIds = new ArrayList<>();
+            for (int i = 0; i < list.length(); i++) {
+                Site site = Site.fromJson(list.getJSONObject(i));
+                listEntries.add(site.withPending(!site.siteId().isEmpty()));
+                siteIds.add(site.siteId());
             }
-        } catch (Exception ex) {
+            applySearchUpdate(generation, () -> {
+                searchResults.clear();
+                searchResults.addAll(listEntries);
+            });
+
+            // Enrich each row in place; fall back to the list entry if the detail call failed
+            siteResolver.resolveAll(
+                    siteIds,
+                    siteId -> siteId.isEmpty() ? null : fetchSiteBySiteId(siteId),
+                    (index, result) -> applySearchUpdate(generation, () -> {
+                        Site detailedSite = result.value();
+                        searchResults.set(index, detailedSite != null ? detailedSite : listEntries.get(index).withPending(false));
+                    })
+            );
+        }).exceptionally(ex -> {
             ex.printStackTrace();
-            searchResults.clear();
-            notifyDataChanged();
-            throw new RuntimeException(ex);
-        }
+            applySearchUpdate(generation, searchResults::clear);
+            runForSearch(generation, () -> notifyLookupFailures(query, String.valueOf(ex.getMessage())));
+            return null;
+        });
     }
 
     public void searchSiteById(String id) {
-        try {
-            boolean isSiteId = id.matches("^\\d{5}-\\d{5}$");
-            String url;
+        if (id.matches("^\\d{5}-\\d{5}$")) {
+            searchMultipleSiteIds(List.of(id));
+        } else {
+            searchMultipleLocationIds(List.of(id));
+        }
+    }
 
-            if (isSiteId) {
-                url = "https://chaynssvc.tobit.com/redirect/v0.5/" + id + "/locationSettings";
-            } else {
-                url = "https://chaynssvc.tobit.com/v0.5/" + id + "/LocationSettings";
-            }
+    private static String siteIdUrl(String siteId) {
+        return "https://chaynssvc.tobit.com/redirect/v0.5/" + siteId + "/locationSettings";
+    }
 
-            JSONObject siteDetails = getSiteDetails(url);
-            searchResults.clear();
+    private static String locationIdUrl(String locationId) {
+        return "https://chaynssvc.tobit.com/v0.5/" + locationId + "/LocationSettings";
+    }
 
-            if (siteDetails != null) {
-                searchResults.add(siteDetails);
-            }
+    private Site fetchSiteBySiteId(String siteId) throws IOException {
+        Site saved = savedSitesBySiteId.get(siteId);
+        if (saved != null) return saved;
 
-            notifyDataChanged();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            searchResults.clear();
-            notifyDataChanged();
-            throw new RuntimeException(ex);
-        }
+        Site cached = siteCache.getBySiteId(siteId);
+        return cached != null ? cached : fetchSiteDetails(siteIdUrl(siteId));
     }
 
-    private JSONObject getSiteDetails(String urlOrId) {
-        String url = urlOrId.startsWith("http") ? urlOrId :
-                "https://chaynssvc.tobit.com/redirect/v0.5/" + urlOrId + "/locationSettings";
+    private Site fetchSiteByLocationId(String locationId) throws IOException {
+        int id = parseLocationId(locationId);
+        if (id <= 0) {
+            throw new IOException("Invalid location ID");
+        }
+
+        Site saved = savedSitesByLocationId.get(id);
+        if (saved != null) return saved;
 
+        Site cached = siteCache.getByLocationId(id);
+        return cached != null ? cached : fetchSiteDetails(locationIdUrl(locationId));
+    }
+
+    private static int parseLocationId(String locationId) {
         try {
-            ApiResponse response = apiHelper.getRequest(url);
+            return Integer.parseInt(locationId);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
 
-            if (response.isSuccess()) {
-                JSONObject jsonResponse = new JSONObject(response.data());
-                return jsonResponse.optJSONObject("data");
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
+    /**
+     * Loads and decodes the locationSettings data for a site, throwing with a readable reason on failure.
+     * Successful results are cached by both siteId and locationId.
+     */
+    private Site fetchSiteDetails(String url) throws IOException {
+        ApiResponse response = apiHelper.getRequest(url);
+        if (!response.isSuccess()) {
+            throw new IOException("HTTP " + response.statusCode());
         }
-        return null;
+
+        JSONObject data = new JSONObject(response.data()).optJSONObject("data");
+        if (data == null) {
+            throw new IOException("No site data");
+        }
+
+        Site site = Site.fromJson(data);
+        siteCache.put(site);
+        return site;
     }
-}
\ No newline at end of file
+}
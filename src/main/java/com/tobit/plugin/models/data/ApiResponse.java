@@ -1,6 +1,15 @@
 package com.tobit.plugin.models.data;
 
-public record ApiResponse(String data, int statusCode) {
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * @param error why the request could not be completed, or null if the server answered
+ */
+public record ApiResponse(String data, int statusCode, @Nullable String error) {
+
+    public ApiResponse(String data, int statusCode) {
+        this(data, statusCode, null);
+    }
 
     public boolean isSuccess() {
         return statusCode >= 200 && statusCode < 300;
@@ -9,4 +18,11 @@ public record ApiResponse(String data, int statusCode) {
     public boolean isForbidden() {
         return statusCode == 403;
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether the request failed before a response arrived, e.g. a timeout or connection error.
+     */
+    public boolean isTransportError() {
+        return error != null;
+    }
+}
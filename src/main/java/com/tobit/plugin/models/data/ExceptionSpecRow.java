@@ -0,0 +1,18 @@
+package com.tobit.plugin.models.data;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One entry of a bulk exception spec. The item is null if the entry could not be read at all.
+ * The line is the line number in a CSV spec and the 1-based entry number in a JSON spec.
+ */
+public record ExceptionSpecRow(int line, String name, @Nullable ExceptionItem item, @Nullable String error) {
+
+    public boolean isValid() {
+        return item != null && error == null;
+    }
+
+    public ExceptionSpecRow withError(String error) {
+        return new ExceptionSpecRow(line, name, item, error);
+    }
+}
@@ -1,3 +1,22 @@
 package com.tobit.plugin.models.data;
 
-public record Person(String userName, String personId, int userId) { }
\ No newline at end of file
+/**
+ * A person as shown in the persons table. Pending persons are placeholders that are still being looked up.
+ */
+public record Person(String userName, String personId, int userId, boolean pending) {
+
+    public Person(String userName, String personId, int userId) {
+        this(userName, personId, userId, false);
+    }
+
+    /**
+     * Placeholder shown while the person is still being looked up.
+     */
+    public static Person pending(String personId) {
+        return new Person("", personId, 0, true);
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tobit.plugin.models.data;
+
+import org.json.JSONObject;
+
+/**
+ * A site as shown in the sites table. Only the displayed fields are kept from the API payload.
+ * Pending sites are placeholders whose details are still loading.
+ */
+public record Site(String locationName, String siteId, int locationId, String locationPersonId, boolean pending) {
+
+    public Site(String locationName, String siteId, int locationId, String locationPersonId) {
+        this(locationName, siteId, locationId, locationPersonId, false);
+    }
+
+    /**
+     * Decodes a locationSettings or relations entry.
+     */
+    public static Site fromJson(JSONObject json) {
+        return new Site(
+                json.optString("locationName", json.optString("name", "")),
+                json.optString("siteId", ""),
+                json.optInt("locationId", 0),
+                json.optString("locationPersonId", "")
+        );
+    }
+
+    public static Site fromLocationItem(LocationItem item) {
+        return new Site(item.getName(), item.getSiteId(), item.getId(), item.getLocationPersonId());
+    }
+
+    public static Site pendingSiteId(String siteId) {
+        return new Site("", siteId, 0, "", true);
+    }
+
+    public static Site pendingLocationId(int locationId) {
+        return new Site("", "", locationId, "", true);
+    }
+
+    public Site withPending(boolean pending) {
+        return new Site(locationName, siteId, locationId, locationPersonId, pending);
+    }
+
+    public LocationItem toLocationItem() {
+        return new LocationItem(locationName, locationId, siteId, locationPersonId);
+    }
+}
@@ -1,78 +1,123 @@
 // src/main/java/com/tobit/plugin/service/ChaynsApiService.java
 package com.tobit.plugin.services;
 
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.tobit.plugin.models.data.ApiResponse;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
-public class ApiService {
+/**
+ * Application-wide HTTP access. All requests share one pooled {@link HttpClient},
+ * so connections (and their TLS sessions) are kept alive and reused across calls.
+ */
+@Service(Service.Level.APP)
+public final class ApiService {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_HTTP_THREADS = 8;
 
-    public ApiResponse getRequest(String url) {
-        return getRequest(url, Collections.emptyMap());
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    public ApiService() {
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("ChaynsDevTools HTTP", MAX_HTTP_THREADS);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
     }
 
-    public ApiResponse getRequest(String url, Map<String, String> headers) {
-        return makeRequest("GET", url, null, headers);
+    public static ApiService getInstance() {
+        return ServiceManager.getService(ApiService.class);
     }
 
-    public ApiResponse postRequest(String url, String body) {
-        return postRequest(url, body, Collections.emptyMap());
+    // Async methods
+    public CompletableFuture<ApiResponse> getAsync(String url) {
+        return getAsync(url, Collections.emptyMap());
     }
 
-    public ApiResponse postRequest(String url, String body, Map<String, String> headers) {
+    public CompletableFuture<ApiResponse> getAsync(String url, Map<String, String> headers) {
+        return sendAsync("GET", url, null, headers);
+    }
+
+    public CompletableFuture<ApiResponse> postAsync(String url, String body) {
+        return postAsync(url, body, Collections.emptyMap());
+    }
+
+    public CompletableFuture<ApiResponse> postAsync(String url, String body, Map<String, String> headers) {
         Map<String, String> contentTypeHeaders = new HashMap<>(headers);
         if (!headers.containsKey("Content-Type")) {
             contentTypeHeaders.put("Content-Type", "application/json");
         }
-        return makeRequest("POST", url, body, contentTypeHeaders);
+        return sendAsync("POST", url, body, contentTypeHeaders);
     }
 
-    private ApiResponse makeRequest(String method, String url, String body, Map<String, String> headers) {
-        try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-            connection.setRequestMethod(method);
+    // Blocking methods, kept for callers that are already off the EDT
+    public ApiResponse getRequest(String url) {
+        return getAsync(url).join();
+    }
 
-            // Add headers
-            for (Map.Entry<String, String> header : headers.entrySet()) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
-            }
+    public ApiResponse getRequest(String url, Map<String, String> headers) {
+        return getAsync(url, headers).join();
+    }
 
-            // Add body for POST requests
-            if (body != null) {
-                connection.setDoOutput(true);
-                try (OutputStreamWriter writer = new OutputStreamWriter(connection.getOutputStream(), "UTF-8")) {
-                    writer.write(body);
-                    writer.flush();
-                }
-            }
+    public ApiResponse postRequest(String url, String body) {
+        return postAsync(url, body).join();
+    }
 
-            // Handle response
-            int statusCode = connection.getResponseCode();
+    public ApiResponse postRequest(String url, String body, Map<String, String> headers) {
+        return postAsync(url, body, headers).join();
+    }
 
-            BufferedReader reader;
-            if (statusCode < 400) {
-                reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            } else {
-                reader = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-            }
+    private CompletableFuture<ApiResponse> sendAsync(String method, String url, String body, Map<String, String> headers) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .method(method, body != null
+                            ? HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)
+                            : HttpRequest.BodyPublishers.noBody());
 
-            StringBuilder responseText = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                responseText.append(line);
+            // Add headers
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
             }
-            reader.close();
-
-            return new ApiResponse(responseText.toString(), statusCode);
+            request = builder.build();
         } catch (Exception e) {
             e.printStackTrace();
-            return new ApiResponse("", 500);
+            return CompletableFuture.completedFuture(new ApiResponse("", 500, describeFailure(e)));
         }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> new ApiResponse(response.body(), response.statusCode()))
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return new ApiResponse("", 500, describeFailure(e));
+                });
+    }
+
+    /**
+     * Names the underlying cause of a failed request, e.g. "HttpConnectTimeoutException: HTTP connect timed out".
+     */
+    private static String describeFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        String message = cause.getMessage();
+        return message != null && !message.isEmpty()
+                ? cause.getClass().getSimpleName() + ": " + message
+                : cause.getClass().getSimpleName();
     }
-}
\ No newline at end of file
+}
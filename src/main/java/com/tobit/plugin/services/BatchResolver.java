@@ -0,0 +1,101 @@
+package com.tobit.plugin.services;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Resolves a list of keys with a bounded number of lookups in flight.
+ * Repeated keys are dispatched only once; results are returned in input order.
+ */
+public class BatchResolver<K, V> {
+    private final ExecutorService executor;
+
+    @FunctionalInterface
+    public interface Lookup<K, V> {
+        /**
+         * Resolves a single key. Returning null or throwing marks the key as failed.
+         */
+        @Nullable V resolve(K key) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ResultListener<K, V> {
+        /**
+         * Called once per input position as soon as its key is resolved.
+         */
+        void onResult(int index, Result<K, V> result);
+    }
+
+    public record Result<K, V>(K key, @Nullable V value, @Nullable String error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    public BatchResolver(String name, int maxConcurrency) {
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor(name, maxConcurrency);
+    }
+
+    public CompletableFuture<Result<K, V>> resolve(K key, Lookup<K, V> lookup) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                V value = lookup.resolve(key);
+                return value != null
+                        ? new Result<>(key, value, null)
+                        : new Result<K, V>(key, null, "Not found");
+            } catch (Exception ex) {
+                String message = ex.getMessage();
+                return new Result<K, V>(key, null, message != null ? message : ex.getClass().getSimpleName());
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<List<Result<K, V>>> resolveAll(List<K> keys, Lookup<K, V> lookup) {
+        return resolveAll(keys, lookup, null);
+    }
+
+    public CompletableFuture<List<Result<K, V>>> resolveAll(List<K> keys, Lookup<K, V> lookup,
+                                                           @Nullable ResultListener<K, V> listener) {
+        // Deduplicate before dispatching
+        Map<K, CompletableFuture<Result<K, V>>> pending = new LinkedHashMap<>();
+        for (K key : keys) {
+            pending.computeIfAbsent(key, k -> resolve(k, lookup));
+        }
+
+        if (listener != null) {
+            for (int i = 0; i < keys.size(); i++) {
+                int index = i;
+                pending.get(keys.get(i)).thenAccept(result -> listener.onResult(index, result));
+            }
+        }
+
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<Result<K, V>> results = new ArrayList<>(keys.size());
+                    for (K key : keys) {
+                        results.add(pending.get(key).join());
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * Blocking variant of {@link #resolveAll}.
+     */
+    public List<Result<K, V>> resolveAllAndWait(List<K> keys, Lookup<K, V> lookup) {
+        try {
+            return resolveAll(keys, lookup).join();
+        } catch (CompletionException ex) {
+            ex.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+}
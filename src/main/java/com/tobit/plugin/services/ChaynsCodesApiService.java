@@ -1,9 +1,11 @@
 package com.tobit.plugin.services;
 
-import com.intellij.openapi.project.Project;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
 import com.tobit.plugin.models.data.ApiResponse;
 import com.tobit.plugin.models.data.LocationItem;
 import com.tobit.plugin.models.data.Person;
+import org.jetbrains.annotations.Nullable;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -11,21 +13,85 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-public class ChaynsCodesApiService {
+/**
+ * Saved persons and sites of the logged-in user. Shared by all projects, so concurrent
+ * reloads from several projects result in a single request.
+ */
+@Service(Service.Level.APP)
+public final class ChaynsCodesApiService {
     private static final String API_END_POINT = "https://run.chayns.codes/d017a810";
+    private static final long FETCH_REUSE_MS = 30 * 1000L; // 30 seconds
+
+    // Last known saved lists of the user named in them, shown instantly on startup before revalidation
+    private static final String SAVED_PERSONS_SNAPSHOT_KEY = "savedPersonsSnapshot";
+    private static final String SAVED_SITES_SNAPSHOT_KEY = "savedSitesSnapshot";
 
     private final ApiService apiService;
-    private final TokenService tokenService;
+    private final SessionService session;
+    private final StorageService storageService;
+    private final SingleFlight<List<Person>> personsFetch = new SingleFlight<>(FETCH_REUSE_MS);
+    private final SingleFlight<List<LocationItem>> sitesFetch = new SingleFlight<>(FETCH_REUSE_MS);
+
+    public ChaynsCodesApiService() {
+        this.apiService = ApiService.getInstance();
+        this.session = SessionService.getInstance();
+        this.storageService = new StorageService();
+    }
 
-    public ChaynsCodesApiService(Project project) {
-        this.apiService = new ApiService();
-        this.tokenService = TokenService.getInstance(project);
+    public static ChaynsCodesApiService getInstance() {
+        return ServiceManager.getService(ChaynsCodesApiService.class);
+    }
+
+    /**
+     * Identifies the user the saved lists belong to, or returns an empty string if nobody is logged in.
+     */
+    public String getSessionOwner() {
+        if (session.getTobitDevToken().isEmpty()) return "";
+
+        String personId = JwtUtil.getClaim(session.getToken(), "PersonID");
+        if (personId.isEmpty()) {
+            personId = JwtUtil.getClaim(session.getTobitDevToken(), "PersonID");
+        }
+        return personId.isEmpty() ? "unknown" : personId;
+    }
+
+    /**
+     * Whether the saved lists can be uploaded, i.e. someone is logged in.
+     */
+    public boolean canSave() {
+        return !session.getTobitDevToken().isEmpty();
+    }
+
+    /**
+     * Forgets the saved lists of the user who is logging out, in memory and on disk.
+     */
+    public void clearUserData() {
+        personsFetch.invalidate();
+        sitesFetch.invalidate();
+        storageService.setValue(SAVED_PERSONS_SNAPSHOT_KEY, "");
+        storageService.setValue(SAVED_SITES_SNAPSHOT_KEY, "");
     }
 
     // Persons methods
     public List<Person> getSavedPersons() {
-        String token = tokenService.getTobitDevToken();
-        if (token.isEmpty()) return Collections.emptyList();
+        List<Person> persons = fetchSavedPersons();
+        return persons != null ? persons : Collections.emptyList();
+    }
+
+    /**
+     * Loads the saved persons from the API and updates the local snapshot.
+     * Returns null if there is no token or the request failed.
+     */
+    @Nullable
+    public List<Person> fetchSavedPersons() {
+        return personsFetch.get(this::requestSavedPersons);
+    }
+
+    @Nullable
+    private List<Person> requestSavedPersons() {
+        String token = session.getTobitDevToken();
+        if (token.isEmpty()) return null;
+        String owner = getSessionOwner();
 
         try {
             JSONObject requestBody = new JSONObject();
@@ -41,62 +107,107 @@ public class ChaynsCodesApiService {
                 JSONObject jsonResponse = new JSONObject(response.data());
                 JSONArray personsArray = jsonResponse.optJSONArray("persons");
 
-                if (personsArray == null) return Collections.emptyList();
-
-                List<Person> persons = new ArrayList<>();
-                for (int i = 0; i < personsArray.length(); i++) {
-                    JSONObject personObj = personsArray.optJSONObject(i);
-                    if (personObj == null) continue;
-
-                    String userName = personObj.optString("userName", "");
-                    String personId = personObj.optString("personId", "");
-                    int userId = personObj.optInt("userId", 0);
-
-                    if (!userName.isEmpty() && !personId.isEmpty() && userId > 0) {
-                        persons.add(new Person(userName, personId, userId));
-                    }
-                }
+                List<Person> persons = personsArray != null ? parsePersons(personsArray) : new ArrayList<>();
+                writeSnapshot(SAVED_PERSONS_SNAPSHOT_KEY, owner, personsToJson(persons));
                 return persons;
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
 
-        return Collections.emptyList();
+        return null;
+    }
+
+    /**
+     * Returns the last known saved persons of the logged-in user without a network call,
+     * or null if there is no snapshot for them.
+     */
+    @Nullable
+    public List<Person> getCachedSavedPersons() {
+        JSONArray snapshot = readSnapshot(SAVED_PERSONS_SNAPSHOT_KEY);
+        return snapshot != null ? parsePersons(snapshot) : null;
     }
 
-    public void savePersons(List<Person> persons) {
-        String token = tokenService.getTobitDevToken();
-        if (token.isEmpty()) return;
+    /**
+     * Uploads the full list of saved persons. Returns whether the upload succeeded.
+     */
+    public boolean savePersons(List<Person> persons) {
+        String token = session.getTobitDevToken();
+        if (token.isEmpty()) return false;
+        String owner = getSessionOwner();
 
         try {
-            JSONArray personsArray = new JSONArray();
-            for (Person person : persons) {
-                JSONObject personObj = new JSONObject();
-                personObj.put("userName", person.userName());
-                personObj.put("personId", person.personId());
-                personObj.put("userId", person.userId());
-                personsArray.put(personObj);
-            }
+            JSONArray personsArray = personsToJson(persons);
 
             JSONObject requestBody = new JSONObject();
             requestBody.put("method", "SET_PERSONS");
             requestBody.put("persons", personsArray);
 
-            apiService.postRequest(
+            ApiResponse response = apiService.postRequest(
                     API_END_POINT,
                     requestBody.toString(),
                     Collections.singletonMap("Authorization", "Bearer " + token)
             );
+            if (response.isSuccess()) {
+                writeSnapshot(SAVED_PERSONS_SNAPSHOT_KEY, owner, personsArray);
+                personsFetch.invalidate();
+            }
+            return response.isSuccess();
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return false;
+    }
+
+    private static List<Person> parsePersons(JSONArray personsArray) {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < personsArray.length(); i++) {
+            JSONObject personObj = personsArray.optJSONObject(i);
+            if (personObj == null) continue;
+
+            String userName = personObj.optString("userName", "");
+            String personId = personObj.optString("personId", "");
+            int userId = personObj.optInt("userId", 0);
+
+            if (!userName.isEmpty() && !personId.isEmpty() && userId > 0) {
+                persons.add(new Person(userName, personId, userId));
+            }
+        }
+        return persons;
+    }
+
+    private static JSONArray personsToJson(List<Person> persons) {
+        JSONArray personsArray = new JSONArray();
+        for (Person person : persons) {
+            JSONObject personObj = new JSONObject();
+            personObj.put("userName", person.userName());
+            personObj.put("personId", person.personId());
+            personObj.put("userId", person.userId());
+            personsArray.put(personObj);
+        }
+        return personsArray;
     }
 
     // Sites methods
     public List<LocationItem> getSavedSites() {
-        String token = tokenService.getTobitDevToken();
-        if (token.isEmpty()) return getDefaultSite();
+        List<LocationItem> sites = fetchSavedSites();
+        return sites != null ? sites : getDefaultSite();
+    }
+
+    /**
+     * Loads the saved sites from the API and updates the local snapshot.
+     * Returns null if there is no token or the request failed.
+     */
+    @Nullable
+    public List<LocationItem> fetchSavedSites() {
+        return sitesFetch.get(this::requestSavedSites);
+    }
+
+    @Nullable
+    private List<LocationItem> requestSavedSites() {
+        String token = session.getTobitDevToken();
+        if (token.isEmpty()) return null;
+        String owner = getSessionOwner();
 
         try {
             JSONObject requestBody = new JSONObject();
@@ -112,63 +223,121 @@ public class ChaynsCodesApiService {
                 JSONObject jsonResponse = new JSONObject(response.data());
                 JSONArray sitesArray = jsonResponse.optJSONArray("sites");
 
-                if (sitesArray == null) return getDefaultSite();
-
-                List<LocationItem> sites = new ArrayList<>();
-                for (int i = 0; i < sitesArray.length(); i++) {
-                    JSONObject siteObj = sitesArray.optJSONObject(i);
-                    if (siteObj == null) continue;
-
-                    String name = siteObj.optString("name", "");
-                    int locationId = siteObj.optInt("locationId", 0);
-                    String siteId = siteObj.optString("siteId", "");
-                    String locationPersonId = siteObj.optString("locationPersonId", "");
-
-                    if (!name.isEmpty() && locationId > 0 && !siteId.isEmpty()) {
-                        sites.add(new LocationItem(name, locationId, siteId, locationPersonId));
-                    }
-                }
+                List<LocationItem> sites = sitesArray != null ? parseSites(sitesArray) : new ArrayList<>();
 
                 // Return default site if no sites were found
                 if (sites.isEmpty()) {
                     return getDefaultSite();
                 }
+                writeSnapshot(SAVED_SITES_SNAPSHOT_KEY, owner, sitesToJson(sites));
                 return sites;
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
 
-        return getDefaultSite();
+        return null;
     }
 
-    public void saveSites(List<LocationItem> sites) {
-        String token = tokenService.getTobitDevToken();
-        if (token.isEmpty()) return;
+    /**
+     * Returns the last known saved sites of the logged-in user without a network call,
+     * or null if there is no snapshot for them.
+     */
+    @Nullable
+    public List<LocationItem> getCachedSavedSites() {
+        JSONArray snapshot = readSnapshot(SAVED_SITES_SNAPSHOT_KEY);
+        return snapshot != null ? parseSites(snapshot) : null;
+    }
+
+    private void writeSnapshot(String key, String owner, JSONArray items) {
+        // Skip if the user logged out while the request was running
+        if (owner.isEmpty() || !owner.equals(getSessionOwner())) return;
+
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("owner", owner);
+        snapshot.put("items", items);
+        storageService.setValue(key, snapshot.toString());
+    }
+
+    /**
+     * Returns the stored items if they belong to the logged-in user. Snapshots without an owner
+     * were written before they were tied to a user and are ignored.
+     */
+    @Nullable
+    private JSONArray readSnapshot(String key) {
+        String owner = getSessionOwner();
+        String stored = storageService.getValue(key);
+        if (owner.isEmpty() || stored == null || !stored.startsWith("{")) return null;
 
         try {
-            JSONArray sitesArray = new JSONArray();
-            for (LocationItem site : sites) {
-                JSONObject siteObj = new JSONObject();
-                siteObj.put("name", site.getName());
-                siteObj.put("locationId", site.getId());
-                siteObj.put("siteId", site.getSiteId());
-                siteObj.put("locationPersonId", site.getLocationPersonId());
-                sitesArray.put(siteObj);
-            }
+            JSONObject snapshot = new JSONObject(stored);
+            return owner.equals(snapshot.optString("owner")) ? snapshot.optJSONArray("items") : null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Uploads the full list of saved sites. Returns whether the upload succeeded.
+     */
+    public boolean saveSites(List<LocationItem> sites) {
+        String token = session.getTobitDevToken();
+        if (token.isEmpty()) return false;
+        String owner = getSessionOwner();
+
+        try {
+            JSONArray sitesArray = sitesToJson(sites);
 
             JSONObject requestBody = new JSONObject();
             requestBody.put("method", "SET_SITES");
             requestBody.put("sites", sitesArray);
 
-            apiService.postRequest(
+            ApiResponse response = apiService.postRequest(
                     API_END_POINT,
                     requestBody.toString(),
                     Collections.singletonMap("Authorization", "Bearer " + token)
             );
+            if (response.isSuccess()) {
+                writeSnapshot(SAVED_SITES_SNAPSHOT_KEY, owner, sitesArray);
+                sitesFetch.invalidate();
+            }
+            return response.isSuccess();
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return false;
+    }
+
+    private static List<LocationItem> parseSites(JSONArray sitesArray) {
+        List<LocationItem> sites = new ArrayList<>();
+        for (int i = 0; i < sitesArray.length(); i++) {
+            JSONObject siteObj = sitesArray.optJSONObject(i);
+            if (siteObj == null) continue;
+
+            String name = siteObj.optString("name", "");
+            int locationId = siteObj.optInt("locationId", 0);
+            String siteId = siteObj.optString("siteId", "");
+            String locationPersonId = siteObj.optString("locationPersonId", "");
+
+            if (!name.isEmpty() && locationId > 0 && !siteId.isEmpty()) {
+                sites.add(new LocationItem(name, locationId, siteId, locationPersonId));
+            }
+        }
+        return sites;
+    }
+
+    private static JSONArray sitesToJson(List<LocationItem> sites) {
+        JSONArray sitesArray = new JSONArray();
+        for (LocationItem site : sites) {
+            JSONObject siteObj = new JSONObject();
+            siteObj.put("name", site.getName());
+            siteObj.put("locationId", site.getId());
+            siteObj.put("siteId", site.getSiteId());
+            siteObj.put("locationPersonId", site.getLocationPersonId());
+            sitesArray.put(siteObj);
+        }
+        return sitesArray;
     }
 
     private List<LocationItem> getDefaultSite() {
@@ -176,4 +345,4 @@ public class ChaynsCodesApiService {
         saveSites(Collections.singletonList(defaultSite));
         return Collections.singletonList(defaultSite);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.tobit.plugin.services;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent index of thrown exceptions in C# sources: exception class name -> offsets of
+ * {@code throw new <Name>Exception(} in the file. Well-known .NET exceptions are skipped.
+ * Codes are looked up by their class name, so the snake_case to PascalCase conversion used
+ * when inserting never has to be reversed. Maintained incrementally by the platform.
+ * All queries need read access and return nothing while indexing is in progress.
+ */
+public class ChaynsExceptionIndex extends FileBasedIndexExtension<String, List<Integer>> {
+    public static final ID<String, List<Integer>> NAME = ID.create("com.tobit.plugin.ChaynsExceptionIndex");
+
+    private static final Pattern THROW_PATTERN = Pattern.compile("\\bthrow\\s+new\\s+([A-Z][A-Za-z0-9]*Exception)\\s*\\(");
+
+    // Framework exceptions that are thrown everywhere and never are chayns error codes
+    private static final Set<String> FRAMEWORK_EXCEPTIONS = Set.of(
+            "AggregateException", "ApplicationException", "ArgumentException", "ArgumentNullException",
+            "ArgumentOutOfRangeException", "ArithmeticException", "DbUpdateException", "DirectoryNotFoundException",
+            "DivideByZeroException", "EndOfStreamException", "FileNotFoundException", "FormatException",
+            "HttpRequestException", "IndexOutOfRangeException", "InvalidCastException", "InvalidDataException",
+            "InvalidEnumArgumentException", "InvalidOperationException", "IOException", "JsonException",
+            "KeyNotFoundException", "NotImplementedException", "NotSupportedException", "NullReferenceException",
+            "ObjectDisposedException", "OperationCanceledException", "OverflowException",
+            "PlatformNotSupportedException", "SecurityException", "SerializationException", "SqlException",
+            "SystemException", "TaskCanceledException", "TimeoutException", "UnauthorizedAccessException",
+            "ValidationException", "WebException"
+    );
+
+    public record Usage(VirtualFile file, int offset) {
+    }
+
+    @Override
+    public @NotNull ID<String, List<Integer>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+        return inputData -> {
+            Map<String, List<Integer>> usages = new HashMap<>();
+            Matcher matcher = THROW_PATTERN.matcher(inputData.getContentAsText());
+            while (matcher.find()) {
+                String className = matcher.group(1);
+                if (FRAMEWORK_EXCEPTIONS.contains(className)) continue;
+                usages.computeIfAbsent(className, name -> new ArrayList<>()).add(matcher.start());
+            }
+            return usages;
+        };
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<Integer>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Integer> offsets) throws IOException {
+                DataInputOutputUtil.writeINT(out, offsets.size());
+                for (int offset : offsets) {
+                    DataInputOutputUtil.writeINT(out, offset);
+                }
+            }
+
+            @Override
+            public List<Integer> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<Integer> offsets = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    offsets.add(DataInputOutputUtil.readINT(in));
+                }
+                return offsets;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        return file -> "cs".equalsIgnoreCase(file.getExtension());
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Every place in the project where the code is thrown.
+     */
+    public static List<Usage> findUsages(Project project, String code) {
+        if (DumbService.isDumb(project)) return Collections.emptyList();
+
+        List<Usage> usages = new ArrayList<>();
+        FileBasedIndex.getInstance().processValues(NAME, toClassName(code), null, (file, offsets) -> {
+            for (int offset : offsets) {
+                usages.add(new Usage(file, offset));
+            }
+            return true;
+        }, GlobalSearchScope.projectScope(project));
+        return usages;
+    }
+
+    /**
+     * Codes of every exception thrown in the project, in snake_case. Keys are not verified
+     * against the scope, so a code removed since the last indexing may still be listed.
+     */
+    public static List<String> findAllCodes(Project project) {
+        if (DumbService.isDumb(project)) return Collections.emptyList();
+
+        List<String> codes = new ArrayList<>();
+        FileBasedIndex.getInstance().processAllKeys(NAME, className -> {
+            String code = toCode(className);
+            if (code != null) {
+                codes.add(code);
+            }
+            return true;
+        }, GlobalSearchScope.projectScope(project), null);
+        return codes;
+    }
+
+    /**
+     * Reverse of {@link #toClassName(String)}, e.g. InvalidTokenException -> invalid_token.
+     * Returns null for names that cannot have been generated from a code, e.g. InvalidJSONException.
+     */
+    public static String toCode(String className) {
+        if (!className.endsWith("Exception")) return null;
+        String name = className.substring(0, className.length() - "Exception".length());
+        if (name.isEmpty()) return null;
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                // Every word of a code starts one lowercase run; acronyms do not round-trip
+                if (i > 0 && Character.isUpperCase(name.charAt(i - 1))) return null;
+                if (i > 0) result.append('_');
+                result.append(Character.toLowerCase(c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Class name of the exception generated for a snake_case code, e.g. invalid_token -> InvalidTokenException.
+     */
+    public static String toClassName(String code) {
+        StringBuilder result = new StringBuilder();
+        boolean capitalizeNext = true;
+
+        for (char c : code.toCharArray()) {
+            if (c == '_') {
+                capitalizeNext = true;
+            } else {
+                result.append(capitalizeNext ? Character.toUpperCase(c) : c);
+                capitalizeNext = false;
+            }
+        }
+
+        return result.append("Exception").toString();
+    }
+}
@@ -0,0 +1,321 @@
+package com.tobit.plugin.services;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.PathUtil;
+import com.intellij.util.messages.Topic;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ChaynsErrors namespaces declared in the project's appsettings*.json files, read once and kept
+ * in memory until one of the files changes. Namespaces from all files are merged in file order.
+ */
+@Service(Service.Level.PROJECT)
+public final class ChaynsNamespaceService {
+    /**
+     * Published on the project message bus after the namespaces were read again.
+     * May be delivered on a background thread.
+     */
+    public static final Topic<NamespaceListener> NAMESPACES_CHANGED =
+            Topic.create("ChaynsErrors namespaces changed", NamespaceListener.class);
+
+    private static final String APP_SETTINGS_PREFIX = "appsettings";
+    private static final String JSON_EXTENSION = ".json";
+
+    private final Project project;
+
+    // Namespace -> files declaring it. Null until the files have been read for the first time
+    private volatile Map<String, List<String>> namespaceSources;
+    // Set when the files changed since they were last read
+    private volatile boolean stale = true;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final AtomicBoolean waitingForSmart = new AtomicBoolean();
+
+    public interface NamespaceListener {
+        void onNamespacesChanged(List<String> namespaces);
+    }
+
+    public ChaynsNamespaceService(Project project) {
+        this.project = project;
+
+        // Read the namespaces again whenever an appsettings file is created, edited, moved or deleted
+        project.getMessageBus().connect(PluginDisposable.getInstance(project))
+                .subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+                    @Override
+                    public void after(@NotNull List<? extends VFileEvent> events) {
+                        if (affectsAppSettings(events)) {
+                            invalidate();
+                        }
+                    }
+                });
+    }
+
+    public static ChaynsNamespaceService getInstance(Project project) {
+        return ServiceManager.getService(project, ChaynsNamespaceService.class);
+    }
+
+    /**
+     * Returns the cached namespaces, or an empty list before the first read. Never reads files;
+     * if the cache is missing or outdated it is refreshed in the background and
+     * {@link #NAMESPACES_CHANGED} is published.
+     */
+    public List<String> getNamespaces() {
+        return List.copyOf(getNamespaceSources().keySet());
+    }
+
+    /**
+     * Returns each namespace with the project-relative paths of the files that declare it.
+     * Like {@link #getNamespaces()}, this only returns what is cached.
+     */
+    public Map<String, List<String>> getNamespaceSources() {
+        Map<String, List<String>> current = namespaceSources;
+        if (current == null || stale) {
+            loadInBackground();
+        }
+        return current != null ? current : Collections.emptyMap();
+    }
+
+    /**
+     * Cheap check for action updates. Never reads files; until the namespaces have been
+     * loaded in the background this returns false.
+     */
+    public boolean hasNamespaces() {
+        return !getNamespaceSources().isEmpty();
+    }
+
+    /**
+     * Reads the namespaces on the calling thread if the cache is missing or outdated, e.g. to
+     * prepare a view before it is shown. Must not be called on the EDT.
+     */
+    public List<String> loadNamespaces() {
+        if (stale) {
+            stale = false;
+            if (!readAndPublish()) {
+                stale = true;
+            }
+        }
+        return getNamespaces();
+    }
+
+    /**
+     * Reads the namespaces again in the background. The cached ones stay available until the
+     * new ones are published through {@link #NAMESPACES_CHANGED}.
+     */
+    public void reload() {
+        invalidate();
+    }
+
+    /**
+     * Marks the cached namespaces as outdated and reads them again in the background.
+     */
+    public void invalidate() {
+        stale = true;
+        loadInBackground();
+    }
+
+    private void loadInBackground() {
+        if (!loading.compareAndSet(false, true)) return;
+
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                while (stale && !project.isDisposed()) {
+                    stale = false;
+                    if (!readAndPublish()) {
+                        // Indexing is in progress; reading again is scheduled for when it ends
+                        stale = true;
+                        break;
+                    }
+                }
+            } finally {
+                loading.set(false);
+            }
+
+            // An invalidation may have arrived after the loop checked for it
+            if (stale && !waitingForSmart.get() && !project.isDisposed()) {
+                loadInBackground();
+            }
+        });
+    }
+
+    /**
+     * Reads the files and publishes the result. While indexing is in progress the files cannot be
+     * looked up; false is returned and a single read is scheduled for when indexing ends.
+     */
+    private boolean readAndPublish() {
+        if (DumbService.isDumb(project)) {
+            if (waitingForSmart.compareAndSet(false, true)) {
+                DumbService.getInstance(project).runWhenSmart(() -> {
+                    waitingForSmart.set(false);
+                    loadInBackground();
+                });
+            }
+            return false;
+        }
+
+        // Only the index lookup needs read access; the files are streamed outside of it
+        Map<VirtualFile, String> files = ReadAction.compute(this::findAppSettingsSources);
+        Map<String, List<String>> loaded = readNamespaceSources(files);
+        namespaceSources = loaded;
+
+        if (!project.isDisposed()) {
+            project.getMessageBus().syncPublisher(NAMESPACES_CHANGED).onNamespacesChanged(List.copyOf(loaded.keySet()));
+        }
+        return true;
+    }
+
+    /**
+     * Every appsettings file with the path shown for it. Needs read access.
+     */
+    private Map<VirtualFile, String> findAppSettingsSources() {
+        Map<VirtualFile, String> sources = new LinkedHashMap<>();
+        VirtualFile projectDir = ProjectUtil.guessProjectDir(project);
+
+        for (VirtualFile file : findAppSettingsFiles()) {
+            String relativePath = projectDir != null ? VfsUtilCore.getRelativePath(file, projectDir) : null;
+            sources.put(file, relativePath != null ? relativePath : file.getPresentableUrl());
+        }
+        return sources;
+    }
+
+    private static Map<String, List<String>> readNamespaceSources(Map<VirtualFile, String> files) {
+        Map<String, List<String>> sources = new LinkedHashMap<>();
+
+        for (Map.Entry<VirtualFile, String> entry : files.entrySet()) {
+            VirtualFile file = entry.getKey();
+            String source = entry.getValue();
+            // Deleted since the lookup; the VFS listener schedules another read
+            if (!file.isValid()) continue;
+
+            try {
+                for (String namespace : readNamespaces(file)) {
+                    List<String> files = sources.computeIfAbsent(namespace, key -> new ArrayList<>());
+                    if (!files.contains(source)) {
+                        files.add(source);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                e.printStackTrace();
+            }
+        }
+
+        sources.replaceAll((namespace, files) -> Collections.unmodifiableList(files));
+        return Collections.unmodifiableMap(sources);
+    }
+
+    /**
+     * Finds every appsettings*.json through the filename index, closest to the project root first.
+     */
+    private List<VirtualFile> findAppSettingsFiles() {
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+
+        Set<String> fileNames = new HashSet<>();
+        FilenameIndex.processAllFileNames(name -> {
+            if (isAppSettingsFileName(name)) {
+                fileNames.add(name);
+            }
+            return true;
+        }, scope, null);
+
+        List<VirtualFile> files = new ArrayList<>();
+        for (String fileName : fileNames) {
+            files.addAll(FilenameIndex.getVirtualFilesByName(fileName, scope));
+        }
+        files.sort(Comparator.comparingInt((VirtualFile file) -> file.getPath().length())
+                .thenComparing(VirtualFile::getPath));
+        return files;
+    }
+
+    /**
+     * Streams a settings file and returns the entries of ChaynsErrors.Namespaces.
+     * Everything outside that section is skipped without being materialized, and reading
+     * stops as soon as the section has been consumed.
+     */
+    private static List<String> readNamespaces(VirtualFile file) throws IOException {
+        List<String> result = new ArrayList<>();
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            // appsettings files may contain comments and trailing commas
+            reader.setLenient(true);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) return result;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                // Configuration keys are case-insensitive in .NET
+                if (!"ChaynsErrors".equalsIgnoreCase(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!"Namespaces".equalsIgnoreCase(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        continue;
+                    }
+
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (reader.peek() == JsonToken.STRING) {
+                            result.add(reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endArray();
+                }
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAppSettingsFileName(String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        return lowerCaseName.startsWith(APP_SETTINGS_PREFIX) && lowerCaseName.endsWith(JSON_EXTENSION);
+    }
+
+    private static boolean affectsAppSettings(List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+            if (isAppSettingsFileName(PathUtil.getFileName(event.getPath()))) {
+                return true;
+            }
+            // Renames away from an appsettings file name
+            if (event instanceof VFilePropertyChangeEvent propertyEvent
+                    && VirtualFile.PROP_NAME.equals(propertyEvent.getPropertyName())
+                    && propertyEvent.getOldValue() instanceof String oldName
+                    && isAppSettingsFileName(oldName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
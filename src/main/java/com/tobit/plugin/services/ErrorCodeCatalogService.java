@@ -0,0 +1,247 @@
+package com.tobit.plugin.services;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.tobit.plugin.models.data.ApiResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local catalog of the chayns error codes that already exist, per namespace.
+ * Lookups only touch memory; the catalog is persisted and refreshed in the background,
+ * asking the server only for changes since the last fetch.
+ */
+@Service(Service.Level.APP)
+public final class ErrorCodeCatalogService {
+    private static final String CODES_URL = "https://webapi.tobit.com/chaynserrors/v1/Codes";
+    private static final String STORAGE_KEY_PREFIX = "errorCodeCatalog.";
+    private static final long REFRESH_INTERVAL_MS = 5 * 60 * 1000L; // 5 minutes
+    private static final long FULL_REFRESH_INTERVAL_MS = 24 * 60 * 60 * 1000L; // 1 day, picks up deleted codes
+
+    private static final class Catalog {
+        // Full codes (namespace + name), lower case
+        final Set<String> codes = ConcurrentHashMap.newKeySet();
+        volatile long fetchedAt;
+        volatile long fullFetchedAt;
+        // Whether the last attempt to fetch failed or was impossible, e.g. while logged out
+        volatile boolean unavailable;
+    }
+
+    private final ApiService apiService;
+    private final StorageService storageService;
+    private final Map<String, Catalog> catalogs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> refreshes = new ConcurrentHashMap<>();
+
+    public ErrorCodeCatalogService() {
+        this.apiService = ApiService.getInstance();
+        this.storageService = new StorageService();
+    }
+
+    public static ErrorCodeCatalogService getInstance() {
+        return ServiceManager.getService(ErrorCodeCatalogService.class);
+    }
+
+    /**
+     * Whether a code with this name is known to exist in the namespace. Never blocks.
+     */
+    public boolean contains(String namespace, String name) {
+        return catalog(namespace).codes.contains(fullCode(namespace, name));
+    }
+
+    /**
+     * Whether the catalog for the namespace has been fetched at least once.
+     */
+    public boolean isLoaded(String namespace) {
+        return catalog(namespace).fetchedAt > 0;
+    }
+
+    /**
+     * Whether the catalog has never been fetched and the last attempt failed, so waiting for it is pointless.
+     */
+    public boolean isUnavailable(String namespace) {
+        Catalog catalog = catalog(namespace);
+        return catalog.fetchedAt == 0 && catalog.unavailable;
+    }
+
+    /**
+     * Names (without the namespace) of all known codes in the namespace.
+     */
+    public List<String> getNames(String namespace) {
+        String prefix = namespace.toLowerCase(Locale.ROOT);
+        List<String> names = new ArrayList<>();
+        for (String code : catalog(namespace).codes) {
+            names.add(code.substring(prefix.length()));
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Records a code that was just created, so it counts as taken before the next refresh.
+     */
+    public void addCode(String namespace, String name) {
+        Catalog catalog = catalog(namespace);
+        catalog.codes.add(fullCode(namespace, name));
+        persist(namespace, catalog);
+    }
+
+    /**
+     * Refreshes the namespace's catalog unless that happened recently. Concurrent calls
+     * share one request. The returned future never fails.
+     */
+    public CompletableFuture<Void> refreshAsync(String namespace, String token) {
+        Catalog catalog = catalog(namespace);
+        if (token.isEmpty()) {
+            catalog.unavailable = true;
+            return CompletableFuture.completedFuture(null);
+        }
+        if (System.currentTimeMillis() - catalog.fetchedAt < REFRESH_INTERVAL_MS) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> refresh = new CompletableFuture<>();
+        CompletableFuture<Void> existing = refreshes.putIfAbsent(namespace, refresh);
+        if (existing != null) {
+            return existing;
+        }
+
+        fetch(namespace, catalog, token).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                catalog.unavailable = true;
+            }
+            refreshes.remove(namespace, refresh);
+            refresh.complete(null);
+        });
+        return refresh;
+    }
+
+    private CompletableFuture<Void> fetch(String namespace, Catalog catalog, String token) {
+        long startedAt = System.currentTimeMillis();
+        boolean full = startedAt - catalog.fullFetchedAt >= FULL_REFRESH_INTERVAL_MS;
+        // Only codes known before the request can have been deleted; codes added meanwhile are kept
+        Set<String> knownAtStart = full ? new HashSet<>(catalog.codes) : Collections.emptySet();
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Authorization", "Bearer " + token);
+        headers.put("Accept", "application/json");
+        if (!full) {
+            // Only changes since the last fetch are needed
+            headers.put("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME
+                    .format(Instant.ofEpochMilli(catalog.fetchedAt).atZone(ZoneOffset.UTC)));
+        }
+
+        String url = CODES_URL + "?namespace=" + URLEncoder.encode(namespace, StandardCharsets.UTF_8);
+        return apiService.getAsync(url, headers).thenAccept(response -> {
+            if (response.statusCode() == 304) {
+                catalog.fetchedAt = startedAt;
+                catalog.unavailable = false;
+                persist(namespace, catalog);
+                return;
+            }
+            if (!response.isSuccess()) {
+                catalog.unavailable = true;
+                return;
+            }
+
+            Set<String> codes = parseCodes(response, namespace);
+            if (full) {
+                for (String code : knownAtStart) {
+                    if (!codes.contains(code)) {
+                        catalog.codes.remove(code);
+                    }
+                }
+                catalog.fullFetchedAt = startedAt;
+            }
+            catalog.codes.addAll(codes);
+            catalog.fetchedAt = startedAt;
+            catalog.unavailable = false;
+            persist(namespace, catalog);
+        });
+    }
+
+    /**
+     * Accepts a plain array or an object wrapping one, with entries being code strings or objects with a code.
+     * Codes from other namespaces are ignored.
+     */
+    private static Set<String> parseCodes(ApiResponse response, String namespace) {
+        Set<String> codes = new HashSet<>();
+        String prefix = namespace.toLowerCase(Locale.ROOT);
+
+        Object root = new JSONTokener(response.data()).nextValue();
+        JSONArray entries = null;
+        if (root instanceof JSONArray array) {
+            entries = array;
+        } else if (root instanceof JSONObject object) {
+            for (String key : new String[]{"codes", "items", "data", "value"}) {
+                entries = object.optJSONArray(key);
+                if (entries != null) break;
+            }
+        }
+        if (entries == null) return codes;
+
+        for (int i = 0; i < entries.length(); i++) {
+            Object entry = entries.opt(i);
+            String code = entry instanceof JSONObject object ? object.optString("code", "") : String.valueOf(entry);
+            code = code.toLowerCase(Locale.ROOT);
+            if (code.startsWith(prefix) && code.length() > prefix.length()) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    private Catalog catalog(String namespace) {
+        return catalogs.computeIfAbsent(namespace, this::load);
+    }
+
+    private Catalog load(String namespace) {
+        Catalog catalog = new Catalog();
+        String stored = storageService.getValue(STORAGE_KEY_PREFIX + namespace);
+        if (stored == null || stored.isEmpty()) return catalog;
+
+        try {
+            JSONObject json = new JSONObject(stored);
+            catalog.fetchedAt = json.optLong("fetchedAt", 0);
+            catalog.fullFetchedAt = json.optLong("fullFetchedAt", 0);
+            JSONArray codes = json.optJSONArray("codes");
+            if (codes != null) {
+                for (int i = 0; i < codes.length(); i++) {
+                    catalog.codes.add(codes.optString(i));
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return catalog;
+    }
+
+    private void persist(String namespace, Catalog catalog) {
+        JSONObject json = new JSONObject();
+        json.put("fetchedAt", catalog.fetchedAt);
+        json.put("fullFetchedAt", catalog.fullFetchedAt);
+        json.put("codes", new JSONArray(catalog.codes));
+        storageService.setValue(STORAGE_KEY_PREFIX + namespace, json.toString());
+    }
+
+    private static String fullCode(String namespace, String name) {
+        return (namespace + name).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,45 @@
+package com.tobit.plugin.services;
+
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Local JWT helpers. Tokens are only decoded, never verified; the server remains the authority.
+ */
+public final class JwtUtil {
+
+    private JwtUtil() {
+    }
+
+    /**
+     * Returns the token's {@code exp} claim in epoch millis, or 0 if the token cannot be decoded.
+     */
+    public static long getExpiryMillis(String token) {
+        JSONObject claims = decodeClaims(token);
+        return claims != null ? claims.optLong("exp", 0) * 1000L : 0;
+    }
+
+    /**
+     * Returns a string claim of the token, or an empty string if it is missing or the token cannot be decoded.
+     */
+    public static String getClaim(String token, String name) {
+        JSONObject claims = decodeClaims(token);
+        return claims != null ? claims.optString(name, "") : "";
+    }
+
+    private static JSONObject decodeClaims(String token) {
+        if (token == null) return null;
+
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) return null;
+
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            return new JSONObject(new String(payload, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.tobit.plugin.services;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+
+/**
+ * Project-scoped parent for the plugin's disposables; disposed when the project closes.
+ */
+@Service(Service.Level.PROJECT)
+public final class PluginDisposable implements Disposable {
+
+    public static Disposable getInstance(Project project) {
+        return ServiceManager.getService(project, PluginDisposable.class);
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
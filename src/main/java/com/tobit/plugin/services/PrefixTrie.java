@@ -0,0 +1,85 @@
+package com.tobit.plugin.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set of words that can be listed by prefix in sorted order. Completing a prefix costs the
+ * prefix length plus the number of results requested, independent of how many words are stored.
+ * Not thread-safe; build it once and then only read it, or confine it to one thread.
+ */
+public class PrefixTrie {
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        boolean terminal;
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * Adds a word. Returns false if it was already present.
+     */
+    public boolean add(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+        }
+        if (node.terminal) return false;
+
+        node.terminal = true;
+        size++;
+        return true;
+    }
+
+    public void addAll(Iterable<String> words) {
+        for (String word : words) {
+            add(word);
+        }
+    }
+
+    public boolean contains(String word) {
+        Node node = find(word);
+        return node != null && node.terminal;
+    }
+
+    /**
+     * Returns up to {@code limit} words starting with the prefix, in lexicographic order.
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> results = new ArrayList<>();
+        Node node = find(prefix);
+        if (node != null && limit > 0) {
+            collect(node, new StringBuilder(prefix), results, limit);
+        }
+        return results;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static boolean collect(Node node, StringBuilder word, List<String> results, int limit) {
+        if (node.terminal) {
+            results.add(word.toString());
+            if (results.size() >= limit) return true;
+        }
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            word.append(child.getKey());
+            boolean full = collect(child.getValue(), word, results, limit);
+            word.setLength(word.length() - 1);
+            if (full) return true;
+        }
+        return false;
+    }
+}
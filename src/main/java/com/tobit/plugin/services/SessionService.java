@@ -0,0 +1,641 @@
+package com.tobit.plugin.services;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.messages.Topic;
+import com.tobit.plugin.models.data.ApiResponse;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONObject;
+
+import java.awt.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.time.Instant;
+
+/**
+ * Application-wide chayns session. All open projects share one login, one refresh schedule
+ * and one set of tokens; {@link TokenService} is the per-project view of it.
+ */
+@Service(Service.Level.APP)
+public final class SessionService implements Disposable {
+    /**
+     * Published on the application message bus whenever the access token changes or is cleared.
+     * Delivered on a background thread; subscribers must move UI work to the EDT themselves.
+     */
+    public static final Topic<TokenChangeListener> TOKEN_CHANGED =
+            Topic.create("Chayns token changed", TokenChangeListener.class, Topic.BroadcastDirection.NONE);
+
+    private final ApiService apiService;
+    private final StorageService storageService;
+    private volatile String currentToken = "";
+    private volatile String currentTobitDevToken = "";
+    // Token events are published one at a time, in the order they occurred
+    private final ExecutorService eventExecutor =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("ChaynsDevTools token events", 1);
+    private ScheduledFuture<?> scheduledRefresh;
+
+    // Site tokens are valid until their exp claim, so repeated switches to the same site are served locally
+    private record SiteToken(String token, String baseToken, long expiresAt) {
+    }
+    private final Map<String, SiteToken> siteTokens = new ConcurrentHashMap<>();
+
+    // Concurrent refreshes share one renew/access round trip
+    private final AtomicReference<CompletableFuture<Boolean>> inFlightRefresh = new AtomicReference<>();
+
+    private static final int DEFAULT_LOCATION_ID = 378;
+    private static final String RENEW_TOKEN_KEY = "renewToken";
+    private static final String RENEW_TOKEN_EXPIRY_KEY = "renewTokenExpiry";
+    private static final String ACCESS_TOKEN_KEY = "accessToken";
+    private static final String TOKEN_EXPIRY_KEY = "tokenExpiry";
+    private static final String DEV_TOKEN_KEY = "tobitDevToken";
+    private static final String DEV_TOKEN_EXPIRY_KEY = "tobitDevTokenExpiry";
+    private static final int TOKEN_TYPE_RENEW = 4;
+    private static final int TOKEN_TYPE_ACCESS = 1;
+    private static final String REMOTE_LOGIN_SITE_ID = "60021-08989";
+    private static final String TOBIT_DEV_SITE_ID = "70266-09943";
+    private static final long REMOTE_LOGIN_TIMEOUT = 5 * 60 * 1000L; // 5 minutes
+    private static final long RENEW_TOKEN_RENEWAL_BUFFER = 7 * 24 * 60 * 60 * 1000L; // 7 days before expiry
+    private static final long ACCESS_TOKEN_REFRESH_BUFFER = 5 * 60 * 1000L; // 5 minutes before expiry
+    private static final long REFRESH_RETRY_DELAY = 60 * 1000L; // 1 minute
+    private static final long MIN_REFRESH_DELAY = 30 * 1000L; // 30 seconds
+    private static final long SITE_TOKEN_SAFETY_MARGIN = 2 * 60 * 1000L; // 2 minutes before expiry
+    private static final long DEV_TOKEN_REFRESH_BUFFER = 2 * 60 * 60 * 1000L; // 2 hours before expiry
+
+    public SessionService() {
+        this.apiService = ApiService.getInstance();
+        this.storageService = new StorageService();
+        restoreSession();
+    }
+
+    public static SessionService getInstance() {
+        return ServiceManager.getService(SessionService.class);
+    }
+
+    /**
+     * Moves a login stored by an older, per-project version of the plugin into the shared session.
+     * Does nothing if the session already has a login.
+     */
+    public synchronized void migrateFrom(StorageService projectStorage) {
+        String renewToken = projectStorage.getValue(RENEW_TOKEN_KEY);
+        if (renewToken == null || renewToken.isEmpty()) return;
+
+        String[] keys = {RENEW_TOKEN_KEY, RENEW_TOKEN_EXPIRY_KEY, ACCESS_TOKEN_KEY, TOKEN_EXPIRY_KEY,
+                DEV_TOKEN_KEY, DEV_TOKEN_EXPIRY_KEY};
+        boolean adopt = !hasRenewToken();
+        for (String key : keys) {
+            if (adopt) {
+                String value = projectStorage.getValue(key);
+                storageService.setValue(key, value != null ? value : "");
+            }
+            projectStorage.setValue(key, "");
+        }
+
+        if (adopt) {
+            restoreSession();
+        }
+    }
+
+    private void restoreSession() {
+        // Restore the stored tokens and keep them fresh in the background
+        restoreTobitDevToken();
+        long expiry = restoreAccessToken();
+        if (expiry > 0) {
+            notifyListeners();
+            scheduleRefresh(refreshDelay(expiry));
+        } else if (hasRenewToken()) {
+            scheduleRefresh(0);
+        }
+    }
+
+    /**
+     * Returns the current access token, or an empty string if not logged in.
+     * Never blocks; the token is refreshed ahead of its expiry by a background task.
+     */
+    public String getToken() {
+        return currentToken;
+    }
+
+    public String getTobitDevToken() {
+        return currentTobitDevToken;
+    }
+
+    public interface TokenChangeListener {
+        void onTokenChanged(String newToken);
+    }
+
+    /**
+     * Publishes the current token without blocking the caller. The dev token is refreshed
+     * first, since subscribers load their data with it.
+     */
+    private void notifyListeners() {
+        String token = currentToken;
+        eventExecutor.execute(() -> {
+            if (ApplicationManager.getApplication().isDisposed()) return;
+
+            if (!token.isEmpty()) {
+                updateTobitDevToken();
+            }
+            ApplicationManager.getApplication().getMessageBus().syncPublisher(TOKEN_CHANGED).onTokenChanged(token);
+        });
+    }
+
+    private void updateTobitDevToken() {
+        // The stored dev token outlives many access tokens; only fetch a new one when it is about to expire
+        if (!currentTobitDevToken.isEmpty()
+                && System.currentTimeMillis() < getTobitDevTokenExpiry() - DEV_TOKEN_REFRESH_BUFFER) {
+            return;
+        }
+
+        try {
+            String devToken = switchSite(TOBIT_DEV_SITE_ID);
+            if (devToken != null && !devToken.isEmpty()) {
+                currentTobitDevToken = devToken;
+                storageService.setValue(DEV_TOKEN_KEY, devToken);
+                storageService.setValue(DEV_TOKEN_EXPIRY_KEY, String.valueOf(JwtUtil.getExpiryMillis(devToken)));
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the stored dev token if it is still valid, so saved lists can load before the first auth round trip.
+     */
+    private void restoreTobitDevToken() {
+        String savedToken = storageService.getValue(DEV_TOKEN_KEY);
+        if (savedToken != null && !savedToken.isEmpty() && System.currentTimeMillis() < getTobitDevTokenExpiry()) {
+            currentTobitDevToken = savedToken;
+        }
+    }
+
+    private long getTobitDevTokenExpiry() {
+        try {
+            String expiryStr = storageService.getValue(DEV_TOKEN_EXPIRY_KEY);
+            return expiryStr != null ? Long.parseLong(expiryStr) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public boolean shouldRenewRenewToken() {
+        String expiryStr = storageService.getValue(RENEW_TOKEN_EXPIRY_KEY);
+        if (expiryStr == null || expiryStr.isEmpty()) return true;
+
+        try {
+            // Parse the ISO-8601 date format
+            Instant expiryInstant = Instant.parse(expiryStr);
+            Instant renewalThreshold = Instant.now().plusMillis(RENEW_TOKEN_RENEWAL_BUFFER);
+
+            // If expiry is before our renewal threshold, we should renew
+            return expiryInstant.isBefore(renewalThreshold);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return true; // If we can't parse the date, better safe than sorry
+        }
+    }
+
+    public void ensureValidRenewToken() {
+        if (shouldRenewRenewToken()) {
+            renewRenewToken();
+        }
+    }
+
+    public void renewRenewToken() {
+        String currentRenewToken = storageService.getValue(RENEW_TOKEN_KEY);
+        if (currentRenewToken == null || currentRenewToken.isEmpty()) return;
+
+        try {
+            JSONObject requestBody = new JSONObject();
+            requestBody.put("locationId", DEFAULT_LOCATION_ID);
+            requestBody.put("tokenType", TOKEN_TYPE_RENEW);
+
+            ApiResponse response = apiService.postRequest(
+                    "https://auth.tobit.com/v2/token",
+                    requestBody.toString(),
+                    java.util.Collections.singletonMap("Authorization", "Bearer " + currentRenewToken)
+            );
+
+            if (response.isSuccess()) {
+                JSONObject jsonResponse = new JSONObject(response.data());
+                String newRenewToken = jsonResponse.optString("token", "");
+                String expiryDate = jsonResponse.optString("expires", "");
+
+                if (!newRenewToken.isEmpty()) {
+                    storageService.setValue(RENEW_TOKEN_KEY, newRenewToken);
+                    // Store the expiry date for the renew token
+                    storageService.setValue(RENEW_TOKEN_EXPIRY_KEY, expiryDate);
+                }
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private boolean getAccessToken(String renewToken) {
+        if (renewToken.isEmpty()) return false;
+
+        // Check if we need to renew the renewToken before using it
+        ensureValidRenewToken();
+
+        // Get the possibly updated renewToken
+        renewToken = storageService.getValue(RENEW_TOKEN_KEY);
+        if (renewToken == null || renewToken.isEmpty()) return false;
+
+        try {
+            JSONObject requestBody = new JSONObject();
+            requestBody.put("locationId", DEFAULT_LOCATION_ID);
+            requestBody.put("tokenType", TOKEN_TYPE_ACCESS);
+
+            ApiResponse response = apiService.postRequest(
+                    "https://auth.tobit.com/v2/token",
+                    requestBody.toString(),
+                    java.util.Collections.singletonMap("Authorization", "Bearer " + renewToken)
+            );
+
+            // Logged out while the request was in flight
+            if (!hasRenewToken()) return false;
+
+            if (response.isSuccess()) {
+                JSONObject jsonResponse = new JSONObject(response.data());
+                String token = jsonResponse.optString("token", "");
+                long expiryMs = System.currentTimeMillis() + (jsonResponse.optInt("expiresIn", 3600) * 1000L);
+
+                storageService.setValue(ACCESS_TOKEN_KEY, token);
+                storageService.setValue(TOKEN_EXPIRY_KEY, String.valueOf(expiryMs));
+                scheduleRefresh(refreshDelay(expiryMs));
+
+                if (!token.equals(currentToken)) {
+                    currentToken = token;
+                    siteTokens.clear();
+                    notifyListeners();
+                }
+                return !token.isEmpty();
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return false;
+    }
+
+    private boolean getAccessToken() {
+        String renewToken = storageService.getValue(RENEW_TOKEN_KEY);
+        if (renewToken == null) renewToken = "";
+        return getAccessToken(renewToken);
+    }
+
+    /**
+     * Returns a token for the given site, reusing a previously fetched one until shortly before it expires.
+     */
+    @Nullable
+    public String switchSite(String siteId) {
+        if (currentToken.isEmpty()) {
+            if (!loadAccessToken()) return null;
+        }
+
+        String baseToken = currentToken;
+        SiteToken cached = siteTokens.get(siteId);
+        if (cached != null && cached.baseToken().equals(baseToken)
+                && System.currentTimeMillis() < cached.expiresAt() - SITE_TOKEN_SAFETY_MARGIN) {
+            return cached.token();
+        }
+
+        try {
+            JSONObject requestBody = new JSONObject();
+            requestBody.put("siteId", siteId);
+
+            ApiResponse response = apiService.postRequest(
+                    "https://auth.tobit.com/v2/token",
+                    requestBody.toString(),
+                    java.util.Collections.singletonMap("Authorization", "Bearer " + baseToken)
+            );
+
+            if (response.isSuccess()) {
+                JSONObject jsonResponse = new JSONObject(response.data());
+                String token = jsonResponse.optString("token", "");
+
+                long expiresAt = JwtUtil.getExpiryMillis(token);
+                if (expiresAt > 0) {
+                    siteTokens.put(siteId, new SiteToken(token, baseToken, expiresAt));
+                }
+                return token;
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Runs the remote login without blocking the caller. The WebSocket connects while the login
+     * code is fetched, and the browser is only opened once the code is registered on it.
+     * Cancelling the returned future closes the socket and abandons the login.
+     */
+    public CompletableFuture<Boolean> remoteLoginAsync() {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        RemoteLoginSocket socket;
+        try {
+            socket = new RemoteLoginSocket();
+            socket.connect();
+        } catch (URISyntaxException ex) {
+            ex.printStackTrace();
+            return CompletableFuture.completedFuture(false);
+        }
+        result.whenComplete((success, ex) -> socket.close());
+
+        apiService.getAsync("https://auth.chayns.net/v2/remotelogin?siteId=" + REMOTE_LOGIN_SITE_ID + "&uacs=")
+                .thenCompose(codeResponse -> {
+                    if (!codeResponse.isSuccess()) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+
+                    JSONObject jsonResponse = new JSONObject(codeResponse.data());
+                    String code = jsonResponse.optString("code", "");
+                    String secret = jsonResponse.optString("secret", "");
+
+                    if (code.isEmpty() || secret.isEmpty()) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+
+                    return socket.register(code)
+                            .thenCompose(registered -> {
+                                if (result.isDone()) return CompletableFuture.completedFuture(false);
+
+                                // Open browser for user authentication
+                                openInBrowser("https://chayns.de?tappAction=cc&ccUrl=https://chayns.cc/login/" + code + "?m=-1");
+                                return socket.awaitApproval(REMOTE_LOGIN_TIMEOUT);
+                            })
+                            .thenCompose(approved -> approved && !result.isDone()
+                                    ? exchangeLoginCode(code, secret, result::isDone)
+                                    : CompletableFuture.completedFuture(false));
+                })
+                .whenComplete((success, ex) -> {
+                    if (ex != null) {
+                        ex.printStackTrace();
+                    }
+                    result.complete(ex == null && success);
+                });
+
+        return result;
+    }
+
+    /**
+     * Exchanges the approved code and secret for a renew token, then for an access token.
+     * If the login was cancelled while the exchange was in flight, the token is dropped.
+     */
+    private CompletableFuture<Boolean> exchangeLoginCode(String code, String secret, BooleanSupplier cancelled) {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("tokenType", TOKEN_TYPE_RENEW);
+
+        java.util.Map<String, String> headers = new java.util.HashMap<>();
+        headers.put("Authorization", "Basic " + encodeBasicAuth(code, secret));
+        headers.put("X-Authorization-Provider", "TobitRemote");
+        headers.put("Content-Type", "application/json");
+        headers.put("Accept", "application/json");
+
+        return apiService.postAsync("https://auth.chayns.net/v2/token", requestBody.toString(), headers)
+                .thenComposeAsync(tokenResponse -> {
+                    if (!tokenResponse.isSuccess()) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+
+                    JSONObject tokenJson = new JSONObject(tokenResponse.data());
+                    String renewToken = tokenJson.optString("token", "");
+                    String expiryDate = tokenJson.optString("expires", "");
+
+                    if (renewToken.isEmpty() || cancelled.getAsBoolean()) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    storageService.setValue(RENEW_TOKEN_KEY, renewToken);
+                    storageService.setValue(RENEW_TOKEN_EXPIRY_KEY, expiryDate);
+                    return CompletableFuture.completedFuture(getAccessToken(renewToken));
+                }, AppExecutorUtil.getAppExecutorService());
+    }
+
+    /**
+     * WebSocket that is told about a login code and reports when the user approved it.
+     */
+    private static class RemoteLoginSocket extends WebSocketClient {
+        private final CompletableFuture<Void> opened = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> approved = new CompletableFuture<>();
+
+        RemoteLoginSocket() throws URISyntaxException {
+            super(new URI("wss://websocket.tobit.com"));
+        }
+
+        /**
+         * Completes once the registration for the code has been sent on the open socket.
+         */
+        CompletableFuture<Void> register(String code) {
+            return opened.thenRun(() -> {
+                JSONObject registerMessage = new JSONObject();
+                JSONObject data = new JSONObject();
+                JSONObject conditions = new JSONObject();
+
+                conditions.put("code", code);
+                data.put("application", "chayns_auth");
+                data.put("conditions", conditions);
+                registerMessage.put("topic", "register");
+                registerMessage.put("data", data);
+
+                send(registerMessage.toString());
+            });
+        }
+
+        CompletableFuture<Boolean> awaitApproval(long timeoutMs) {
+            return approved.completeOnTimeout(false, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshakedata) {
+            opened.complete(null);
+        }
+
+        @Override
+        public void onMessage(String message) {
+            if (message != null) {
+                try {
+                    JSONObject json = new JSONObject(message);
+                    if ("remote_login".equals(json.optString("topic"))) {
+                        approved.complete(true);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+            opened.completeExceptionally(new IOException("WebSocket closed: " + reason));
+            approved.complete(false);
+        }
+
+        @Override
+        public void onError(Exception ex) {
+            ex.printStackTrace();
+            opened.completeExceptionally(ex);
+            approved.complete(false);
+        }
+    }
+
+    private void openInBrowser(String url) {
+        try {
+            if (Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.BROWSE)) {
+                Desktop.getDesktop().browse(new URI(url));
+            }
+        } catch (IOException | URISyntaxException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads a stored, unexpired access token into memory without any network call.
+     * Returns its expiry in epoch millis, or 0 if there is none.
+     */
+    private long restoreAccessToken() {
+        String savedToken = storageService.getValue(ACCESS_TOKEN_KEY);
+        String expiryStr = storageService.getValue(TOKEN_EXPIRY_KEY);
+
+        if (savedToken == null) savedToken = "";
+        if (expiryStr == null) expiryStr = "0";
+
+        long expiry;
+        try {
+            expiry = Long.parseLong(expiryStr);
+        } catch (NumberFormatException e) {
+            expiry = 0;
+        }
+
+        // If token exists and is not expired, use it
+        if (!savedToken.isEmpty() && System.currentTimeMillis() < expiry) {
+            currentToken = savedToken;
+            return expiry;
+        }
+        return 0;
+    }
+
+    private boolean loadAccessToken() {
+        String previous = currentToken;
+        if (restoreAccessToken() > 0) {
+            if (!currentToken.equals(previous)) {
+                notifyListeners();
+            }
+            return true;
+        }
+
+        // Otherwise get a new access token using the renew token
+        return acquireAccessToken();
+    }
+
+    /**
+     * Fetches a new access token, or waits for the fetch that is already in flight.
+     */
+    private boolean acquireAccessToken() {
+        CompletableFuture<Boolean> refresh = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlightRefresh.compareAndExchange(null, refresh);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            refresh.complete(getAccessToken());
+        } catch (Throwable t) {
+            refresh.complete(false);
+            throw t;
+        } finally {
+            inFlightRefresh.compareAndSet(refresh, null);
+        }
+        return refresh.join();
+    }
+
+    /**
+     * Schedules the next background refresh of the access (and, if due, renew) token.
+     */
+    private synchronized void scheduleRefresh(long delayMs) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        // The scheduler thread only hands off; the refresh itself runs on a pooled thread
+        scheduledRefresh = AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                () -> ApplicationManager.getApplication().executeOnPooledThread(this::refreshAccessToken),
+                Math.max(0, delayMs),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Delay until the access token expiring at the given time should be refreshed. Tokens that
+     * live shorter than the refresh buffer are refreshed halfway, but never more often than
+     * every 30 seconds; an already expired token is refreshed right away.
+     */
+    private static long refreshDelay(long expiryMs) {
+        long remaining = expiryMs - System.currentTimeMillis();
+        if (remaining <= 0) return 0;
+        return Math.max(remaining - ACCESS_TOKEN_REFRESH_BUFFER, Math.max(remaining / 2, MIN_REFRESH_DELAY));
+    }
+
+    private synchronized void cancelScheduledRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    private void refreshAccessToken() {
+        if (!hasRenewToken()) return;
+
+        // getAccessToken renews the renew token first if it is close to expiry
+        if (!acquireAccessToken()) {
+            scheduleRefresh(REFRESH_RETRY_DELAY);
+        }
+    }
+
+    public boolean hasRenewToken() {
+        String token = storageService.getValue(RENEW_TOKEN_KEY);
+        return token != null && !token.isEmpty();
+    }
+
+    private String encodeBasicAuth(String username, String password) {
+        return Base64.getEncoder().encodeToString((username + ":" + password).getBytes());
+    }
+
+    public void logout() {
+        cancelScheduledRefresh();
+
+        // Clear stored tokens
+        storageService.setValue(RENEW_TOKEN_KEY, "");
+        storageService.setValue(RENEW_TOKEN_EXPIRY_KEY, "");
+        storageService.setValue(ACCESS_TOKEN_KEY, "");
+        storageService.setValue(TOKEN_EXPIRY_KEY, "");
+        storageService.setValue(DEV_TOKEN_KEY, "");
+        storageService.setValue(DEV_TOKEN_EXPIRY_KEY, "");
+        currentToken = "";
+        currentTobitDevToken = "";
+        siteTokens.clear();
+
+        // The next user must not see or inherit this user's saved lists
+        ChaynsCodesApiService.getInstance().clearUserData();
+        notifyListeners();
+    }
+
+    @Override
+    public void dispose() {
+        cancelScheduledRefresh();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.tobit.plugin.services;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load at a time. Callers arriving while it is in flight, or shortly after it
+ * succeeded, share its result instead of starting their own. A null result is never reused.
+ */
+public class SingleFlight<T> {
+    private final long reuseMs;
+    private CompletableFuture<T> current;
+    private long completedAt;
+
+    public SingleFlight(long reuseMs) {
+        this.reuseMs = reuseMs;
+    }
+
+    @Nullable
+    public T get(Supplier<T> loader) {
+        CompletableFuture<T> flight;
+        boolean owner = false;
+        synchronized (this) {
+            if (current != null && (!current.isDone() || System.currentTimeMillis() - completedAt < reuseMs)) {
+                flight = current;
+            } else {
+                flight = current = new CompletableFuture<>();
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return flight.join();
+        }
+
+        T value = null;
+        try {
+            value = loader.get();
+        } finally {
+            synchronized (this) {
+                completedAt = System.currentTimeMillis();
+                if (value == null && current == flight) {
+                    current = null;
+                }
+            }
+            flight.complete(value);
+        }
+        return value;
+    }
+
+    /**
+     * Forgets the last result, so the next call loads again.
+     */
+    public synchronized void invalidate() {
+        current = null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.tobit.plugin.services;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.ServiceManager;
+import com.tobit.plugin.models.data.Site;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, time-limited cache of decoded locationSettings data.
+ * Every site is reachable by its siteId and by its locationId, so a lookup by one fills the other.
+ */
+@Service(Service.Level.APP)
+public final class SiteDetailsCache {
+    private static final int MAX_SITES = 500;
+    private static final long TTL_MS = 10 * 60 * 1000L; // 10 minutes
+
+    private record Entry(Site site, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+    // Access-ordered, so the least recently used keys are evicted first. Each site occupies up to two keys.
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_SITES * 2;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public static SiteDetailsCache getInstance() {
+        return ServiceManager.getService(SiteDetailsCache.class);
+    }
+
+    @Nullable
+    public Site getBySiteId(String siteId) {
+        return get(siteKey(siteId));
+    }
+
+    @Nullable
+    public Site getByLocationId(int locationId) {
+        return get(locationKey(locationId));
+    }
+
+    /**
+     * Stores a site under its siteId and locationId, whichever of them are present.
+     */
+    public void put(Site site) {
+        String siteId = site.siteId();
+        int locationId = site.locationId();
+        Entry entry = new Entry(site, System.currentTimeMillis() + TTL_MS);
+
+        synchronized (entries) {
+            if (!siteId.isEmpty()) {
+                entries.put(siteKey(siteId), entry);
+            }
+            if (locationId > 0) {
+                entries.put(locationKey(locationId), entry);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Nullable
+    private Site get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                entry = null;
+            }
+
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.site();
+        }
+    }
+
+    private static String siteKey(String siteId) {
+        return "site:" + siteId;
+    }
+
+    private static String locationKey(int locationId) {
+        return "location:" + locationId;
+    }
+}
@@ -12,6 +12,13 @@ public class StorageService {
         this.properties = PropertiesComponent.getInstance(project);
     }
 
+    /**
+     * Application-level storage, shared by all projects.
+     */
+    public StorageService() {
+        this.properties = PropertiesComponent.getInstance();
+    }
+
     public void setValue(String key, String value) {
         properties.setValue(key, value);
     }
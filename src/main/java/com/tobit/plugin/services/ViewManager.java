@@ -6,11 +6,13 @@ import com.intellij.openapi.project.Project;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Service(Service.Level.PROJECT)
 public final class ViewManager {
     private final Project project;
     private final Map<Class<?>, Object> viewRegistry = new HashMap<>();
+    private final Map<Class<?>, Supplier<?>> viewProviders = new HashMap<>();
 
     public ViewManager(Project project) {
         this.project = project;
@@ -20,8 +22,31 @@ public final class ViewManager {
         viewRegistry.put(viewClass, view);
     }
 
+    /**
+     * Registers a view that is only built when it is first requested.
+     */
+    public <T> void registerViewProvider(Class<T> viewClass, Supplier<T> provider) {
+        viewProviders.put(viewClass, provider);
+    }
+
+    /**
+     * Returns the view, building it through its provider if that has not happened yet.
+     */
     @SuppressWarnings("unchecked")
     public <T> T getView(Class<T> viewClass) {
+        Object view = viewRegistry.get(viewClass);
+        if (view == null && viewProviders.containsKey(viewClass)) {
+            view = viewProviders.get(viewClass).get();
+            viewRegistry.put(viewClass, view);
+        }
+        return (T) view;
+    }
+
+    /**
+     * Returns the view only if it has already been built.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getLoadedView(Class<T> viewClass) {
         return (T) viewRegistry.get(viewClass);
     }
 
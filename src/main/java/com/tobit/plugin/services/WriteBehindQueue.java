@@ -0,0 +1,142 @@
+package com.tobit.plugin.services;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Coalesces full-state writes. Each submitted snapshot replaces the previous unwritten one and
+ * is written once no new snapshot has arrived for a short quiet period. Failed writes are
+ * retried with backoff, and any pending snapshot is written in the background when the queue is disposed.
+ * Snapshots that cannot be written at all, e.g. while logged out, are dropped instead of retried.
+ */
+public class WriteBehindQueue<T> implements Disposable {
+    private static final long QUIET_PERIOD_MS = 1500;
+    private static final long MAX_RETRY_DELAY_MS = 60 * 1000L;
+
+    private final Predicate<T> writer;
+    private final BooleanSupplier canWrite;
+    private final Object lock = new Object();
+    // Serializes writes so an older snapshot can never overwrite a newer one
+    private final Object writeLock = new Object();
+
+    private T pending;
+    private ScheduledFuture<?> scheduledFlush;
+    private long retryDelayMs = QUIET_PERIOD_MS;
+    private boolean disposed;
+    // Incremented by cancel(), so a write that was already running cannot bring its snapshot back
+    private int generation;
+
+    /**
+     * @param writer   writes a snapshot and returns whether it succeeded
+     * @param canWrite whether writing is possible at all; if not, the pending snapshot is dropped
+     */
+    public WriteBehindQueue(Predicate<T> writer, BooleanSupplier canWrite) {
+        this.writer = writer;
+        this.canWrite = canWrite;
+    }
+
+    public void submit(T snapshot) {
+        synchronized (lock) {
+            pending = snapshot;
+            if (!disposed) {
+                schedule(QUIET_PERIOD_MS);
+            }
+        }
+    }
+
+    public boolean hasPendingWrite() {
+        synchronized (lock) {
+            return pending != null;
+        }
+    }
+
+    /**
+     * Drops the pending snapshot without writing it, e.g. because it belongs to a user who logged out.
+     */
+    public void cancel() {
+        synchronized (lock) {
+            cancelScheduledFlush();
+            pending = null;
+            retryDelayMs = QUIET_PERIOD_MS;
+            generation++;
+        }
+    }
+
+    /**
+     * Writes the pending snapshot now, on the calling thread.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            T snapshot;
+            int snapshotGeneration;
+            synchronized (lock) {
+                cancelScheduledFlush();
+                snapshot = pending;
+                snapshotGeneration = generation;
+                pending = null;
+            }
+            if (snapshot == null) return;
+            if (!canWrite.getAsBoolean()) {
+                // Retrying cannot help, e.g. nobody is logged in
+                synchronized (lock) {
+                    retryDelayMs = QUIET_PERIOD_MS;
+                }
+                return;
+            }
+
+            boolean success;
+            try {
+                success = writer.test(snapshot);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                success = false;
+            }
+
+            synchronized (lock) {
+                if (success) {
+                    retryDelayMs = QUIET_PERIOD_MS;
+                } else if (pending == null && snapshotGeneration == generation) {
+                    // Keep the failed snapshot unless a newer one arrived meanwhile
+                    pending = snapshot;
+                    if (!disposed) {
+                        retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+                        schedule(retryDelayMs);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (lock) {
+            disposed = true;
+            cancelScheduledFlush();
+        }
+        // Closing a project must not wait on the network, so the last write runs on a pooled thread
+        ApplicationManager.getApplication().executeOnPooledThread(this::flush);
+    }
+
+    private void schedule(long delayMs) {
+        cancelScheduledFlush();
+        // The scheduler thread only hands off; the write itself runs on a pooled thread
+        scheduledFlush = AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                () -> ApplicationManager.getApplication().executeOnPooledThread(this::flush),
+                delayMs,
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.tobit.plugin.tables;
 
 import com.intellij.icons.AllIcons;
 import com.tobit.plugin.controller.SitesController;
+import com.tobit.plugin.models.data.Site;
 import com.tobit.plugin.views.SitesPanel.SiteTableModel;
-import org.json.JSONObject;
 
 import javax.swing.*;
 import java.awt.datatransfer.StringSelection;
@@ -11,7 +11,7 @@ import java.awt.*;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class SitesTable extends DataTable<JSONObject, SiteTableModel> {
+public class SitesTable extends DataTable<Site, SiteTableModel> {
     private final SitesController controller;
 
     public SitesTable(SiteTableModel model, SitesController controller) {
@@ -29,8 +29,8 @@ public class SitesTable extends DataTable<JSONObject, SiteTableModel> {
         getTokenMenuItem.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row >= 0 && !isSeparator(row)) {
-                JSONObject site = getItemAt(row);
-                String siteId = site.optString("siteId", "");
+                Site site = getItemAt(row);
+                String siteId = site.siteId();
                 if (!siteId.isEmpty()) {
                     controller.getTokenForSite(siteId);
                 } else {
@@ -45,8 +45,8 @@ public class SitesTable extends DataTable<JSONObject, SiteTableModel> {
         openInBrowserMenuItem.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row >= 0 && !isSeparator(row)) {
-                JSONObject site = getItemAt(row);
-                String siteId = site.optString("siteId", "");
+                Site site = getItemAt(row);
+                String siteId = site.siteId();
                 if (!siteId.isEmpty()) {
                     controller.openSiteInBrowser(siteId);
                 } else {
@@ -62,7 +62,7 @@ public class SitesTable extends DataTable<JSONObject, SiteTableModel> {
         saveMenuItem.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row >= 0 && !isSeparator(row)) {
-                JSONObject site = getItemAt(row);
+                Site site = getItemAt(row);
                 controller.saveSite(site);
             }
         });
@@ -74,8 +74,8 @@ public class SitesTable extends DataTable<JSONObject, SiteTableModel> {
         removeMenuItem.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row >= 0 && !isSeparator(row)) {
-                JSONObject site = getItemAt(row);
-                controller.removeSite(site.optInt("locationId", 0));
+                Site site = getItemAt(row);
+                controller.removeSite(site.locationId());
             }
         });
 
@@ -101,13 +101,13 @@ public class SitesTable extends DataTable<JSONObject, SiteTableModel> {
     }
 
     @Override
-    protected JSONObject getItemAt(int row) {
+    protected Site getItemAt(int row) {
         return model.getSiteAt(row);
     }
 
     @Override
-    protected boolean isItemSaved(JSONObject item) {
-        return controller.isSiteSaved(item.optInt("locationId", 0));
+    protected boolean isItemSaved(Site item) {
+        return controller.isSiteSaved(item.locationId());
     }
 
     @Override
@@ -0,0 +1,298 @@
+package com.tobit.plugin.views;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptor;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import com.tobit.plugin.controller.ChaynsExceptionController;
+import com.tobit.plugin.models.ExceptionSpecParser;
+import com.tobit.plugin.models.data.ExceptionItem;
+import com.tobit.plugin.models.data.ExceptionSpecRow;
+import com.tobit.plugin.services.BatchResolver;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates many chayns exceptions from a JSON or CSV spec file. Entries are validated locally,
+ * created concurrently, and their throw statements inserted in one go.
+ */
+public class BulkInsertChaynsExceptionPanel {
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final Editor editor;
+    private final ChaynsExceptionController controller;
+
+    private final SpecTableModel tableModel = new SpecTableModel();
+    private final JBLabel summaryLabel = new JBLabel("Load a JSON or CSV spec with the columns name, statusCode, logLevel, description and message.");
+    private final JButton loadButton = new JButton("Load Spec...");
+    private final JButton createButton = new JButton("Create All");
+    private final JButton insertButton = new JButton("Insert Snippets");
+
+    // Set when the dialog is closed, so requests that have not been sent are skipped
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private CompletableFuture<List<BatchResolver.Result<ExceptionItem, ExceptionItem>>> creation;
+    private boolean inserted;
+
+    public BulkInsertChaynsExceptionPanel(ChaynsExceptionController controller, Editor editor) {
+        this.editor = editor;
+        this.controller = controller;
+        setupUI();
+    }
+
+    public JPanel getPanel() {
+        return panel;
+    }
+
+    private void setupUI() {
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.setPreferredSize(new Dimension(720, 420));
+
+        // Namespace selection, as in the single-exception dialog
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        List<String> namespaces = controller.getNamespaces();
+        if (namespaces.size() > 1) {
+            JComboBox<String> namespaceCombo = new JComboBox<>(namespaces.toArray(new String[0]));
+            namespaceCombo.setSelectedItem(controller.getSelectedNamespace());
+            namespaceCombo.addActionListener(e -> {
+                controller.setSelectedNamespace((String) namespaceCombo.getSelectedItem());
+                revalidateRows();
+            });
+            topPanel.add(new JBLabel("Namespace: "));
+            topPanel.add(namespaceCombo);
+        } else {
+            JBLabel namespaceLabel = new JBLabel("namespace: " + controller.getSelectedNamespace());
+            namespaceLabel.setForeground(JBColor.GRAY);
+            namespaceLabel.setFont(namespaceLabel.getFont().deriveFont(Font.ITALIC));
+            topPanel.add(namespaceLabel);
+        }
+
+        JBTable table = new JBTable(tableModel);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getColumnModel().getColumn(0).setMaxWidth(JBUI.scale(50));
+        table.getColumnModel().getColumn(4).setPreferredWidth(JBUI.scale(260));
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(8, 0, 0, 0));
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttonPanel.add(loadButton);
+        buttonPanel.add(createButton);
+        buttonPanel.add(insertButton);
+        bottomPanel.add(summaryLabel, BorderLayout.CENTER);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+
+        loadButton.addActionListener(e -> loadSpec());
+        createButton.addActionListener(e -> createAll());
+        insertButton.addActionListener(e -> insertSnippets());
+        createButton.setEnabled(false);
+        insertButton.setEnabled(false);
+
+        panel.add(topPanel, BorderLayout.NORTH);
+        panel.add(new JBScrollPane(table), BorderLayout.CENTER);
+        panel.add(bottomPanel, BorderLayout.SOUTH);
+
+        // Warm the catalog so duplicates are caught before anything is posted
+        controller.refreshCodeCatalog().thenRun(() -> SwingUtilities.invokeLater(this::revalidateRows));
+    }
+
+    private void loadSpec() {
+        FileChooserDescriptor descriptor = FileChooserDescriptorFactory.createSingleFileDescriptor()
+                .withTitle("Select Exception Spec")
+                .withExtensionFilter("JSON or CSV", "json", "csv");
+        VirtualFile file = FileChooser.chooseFile(descriptor, editor.getProject(), null);
+        if (file == null) return;
+
+        try {
+            List<ExceptionSpecRow> rows = ExceptionSpecParser.parse(VfsUtilCore.loadText(file), file.getName());
+            tableModel.setRows(controller.validateSpec(rows));
+            updateSummary();
+        } catch (Exception ex) {
+            controller.showErrorDialog(panel, "Could not read spec: " + ex.getMessage(), "Invalid Spec");
+        }
+    }
+
+    /**
+     * Re-checks rows that have not been submitted yet, e.g. after the namespace or catalog changed.
+     */
+    private void revalidateRows() {
+        if (tableModel.isSubmitted() || tableModel.getRowCount() == 0) return;
+
+        List<ExceptionSpecRow> rows = new ArrayList<>();
+        for (ExceptionSpecRow row : tableModel.getRows()) {
+            // Drop earlier validation results, but keep errors from reading the spec
+            rows.add(row.item() != null ? new ExceptionSpecRow(row.line(), row.name(), row.item(), null) : row);
+        }
+        tableModel.setRows(controller.validateSpec(rows));
+        updateSummary();
+    }
+
+    private void createAll() {
+        List<Integer> rowIndices = new ArrayList<>();
+        List<ExceptionItem> items = new ArrayList<>();
+        List<ExceptionSpecRow> rows = tableModel.getRows();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).isValid()) {
+                rowIndices.add(i);
+                items.add(rows.get(i).item());
+                tableModel.setResult(i, "Creating...", false);
+            }
+        }
+        if (items.isEmpty()) return;
+
+        tableModel.setSubmitted();
+        loadButton.setEnabled(false);
+        createButton.setEnabled(false);
+        summaryLabel.setText("Creating " + items.size() + " exception(s)...");
+
+        creation = controller.createExceptions(items, (index, result) -> SwingUtilities.invokeLater(() ->
+                tableModel.setResult(rowIndices.get(index),
+                        result.isSuccess() ? "Created" : "Failed: " + result.error(),
+                        result.isSuccess())
+        ), cancelled::get);
+        creation.whenComplete((results, ex) -> SwingUtilities.invokeLater(() -> {
+            int created = tableModel.getCreatedCodes().size();
+            summaryLabel.setText(created + " of " + items.size() + " exception(s) created.");
+            insertButton.setEnabled(created > 0);
+        }));
+    }
+
+    private void insertSnippets() {
+        inserted = true;
+        controller.insertExceptions(editor, tableModel.getCreatedCodes());
+
+        // Close the dialog
+        Window window = SwingUtilities.getWindowAncestor(panel);
+        if (window != null) {
+            window.dispose();
+        }
+    }
+
+    /**
+     * Called when the dialog is closed without inserting. Requests that have not been sent are
+     * skipped. Exceptions that were created, including by requests still running, exist on the
+     * server already, so their throw statements are inserted anyway (one undoable command).
+     */
+    public void close() {
+        cancelled.set(true);
+        if (inserted || creation == null) return;
+        inserted = true;
+
+        creation.whenComplete((results, ex) -> ApplicationManager.getApplication().invokeLater(() -> {
+            if (results == null || editor.isDisposed()) return;
+
+            List<String> codes = new ArrayList<>();
+            for (BatchResolver.Result<ExceptionItem, ExceptionItem> result : results) {
+                if (result.isSuccess()) {
+                    codes.add(result.key().code());
+                }
+            }
+            if (!codes.isEmpty()) {
+                controller.insertExceptions(editor, codes);
+            }
+        }));
+    }
+
+    private void updateSummary() {
+        int valid = 0;
+        for (ExceptionSpecRow row : tableModel.getRows()) {
+            if (row.isValid()) valid++;
+        }
+        int invalid = tableModel.getRowCount() - valid;
+        summaryLabel.setText(valid + " valid, " + invalid + " invalid");
+        createButton.setEnabled(valid > 0 && !tableModel.isSubmitted());
+    }
+
+    private static class SpecTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"#", "Name", "Status", "Log Level", "Result"};
+        private static final String[] LOG_LEVELS = {"Info", "Warn", "Error"};
+
+        private final List<ExceptionSpecRow> rows = new ArrayList<>();
+        private final List<String> results = new ArrayList<>();
+        private final List<Boolean> created = new ArrayList<>();
+        private boolean submitted;
+
+        void setRows(List<ExceptionSpecRow> newRows) {
+            rows.clear();
+            results.clear();
+            created.clear();
+            for (ExceptionSpecRow row : newRows) {
+                rows.add(row);
+                results.add(row.isValid() ? "Ready" : "Invalid: " + row.error());
+                created.add(false);
+            }
+            fireTableDataChanged();
+        }
+
+        List<ExceptionSpecRow> getRows() {
+            return rows;
+        }
+
+        void setResult(int row, String result, boolean success) {
+            results.set(row, result);
+            created.set(row, success);
+            fireTableRowsUpdated(row, row);
+        }
+
+        void setSubmitted() {
+            submitted = true;
+        }
+
+        boolean isSubmitted() {
+            return submitted;
+        }
+
+        /**
+         * Names of the successfully created exceptions, in spec order.
+         */
+        List<String> getCreatedCodes() {
+            List<String> codes = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                if (created.get(i)) {
+                    codes.add(rows.get(i).name());
+                }
+            }
+            return codes;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ExceptionSpecRow row = rows.get(rowIndex);
+            ExceptionItem item = row.item();
+            return switch (columnIndex) {
+                case 0 -> row.line();
+                case 1 -> row.name();
+                case 2 -> item != null ? item.statusCode() : "";
+                case 3 -> item != null && item.LogLevel() != null ? LOG_LEVELS[item.LogLevel() - 2] : "";
+                case 4 -> results.get(rowIndex);
+                default -> "";
+            };
+        }
+    }
+}
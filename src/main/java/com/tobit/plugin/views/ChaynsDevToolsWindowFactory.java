@@ -2,16 +2,20 @@ package com.tobit.plugin.views;
 
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.*;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBLoadingPanel;
 import com.intellij.ui.components.JBTabbedPane;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
 import com.tobit.plugin.controller.ChaynsExceptionController;
 import com.tobit.plugin.controller.PersonsController;
 import com.tobit.plugin.controller.SitesController;
+import com.tobit.plugin.services.ChaynsNamespaceService;
+import com.tobit.plugin.services.PluginDisposable;
 import com.tobit.plugin.services.TokenService;
 import com.tobit.plugin.services.ViewManager;
 import org.jetbrains.annotations.NotNull;
@@ -20,6 +24,8 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.awt.*;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class ChaynsDevToolsWindowFactory implements ToolWindowFactory {
     @Override
@@ -43,40 +49,36 @@ class ChaynsToolWindow {
     private final JPanel mainView = new JPanel(new BorderLayout());
     private final JBTabbedPane tabbedPane = new JBTabbedPane();
 
-    private final PersonsPanel personsPanel;
-    private final SitesPanel sitesPanel;
-    private final ChaynsExceptionPanel exceptionPanel;
+    // Tabs in display order; each builds its controller and view on first use
+    private final List<LazyTab<?>> tabs;
+    private boolean showingMain;
 
     public ChaynsToolWindow(Project project) {
         TokenService tokenService = TokenService.getInstance(project);
         this.loginView = new LoginPanel(project);
 
-        // Initialize controllers
-        // Your panels
-        PersonsController personsController = new PersonsController(project);
-        SitesController sitesController = new SitesController(project);
-        ChaynsExceptionController exceptionController = new ChaynsExceptionController(project);
-
-        // Create views
-        this.personsPanel = personsController.createView();
-        this.sitesPanel = sitesController.createView();
-        this.exceptionPanel = exceptionController.createView();
+        this.tabs = List.of(
+                new LazyTab<>(project, "Sites", SitesPanel.class, null,
+                        () -> new SitesController(project).createView(), SitesPanel::getPanel),
+                new LazyTab<>(project, "Persons", PersonsPanel.class, null,
+                        () -> new PersonsController(project).createView(), PersonsPanel::getPanel),
+                // Reading the namespaces scans the project, so do it before the tab is built
+                new LazyTab<>(project, "Chayns Exceptions", ChaynsExceptionPanel.class,
+                        () -> ChaynsNamespaceService.getInstance(project).loadNamespaces(),
+                        () -> new ChaynsExceptionController(project).createView(), ChaynsExceptionPanel::getPanel)
+        );
 
         setupUI();
         tokenService.addTokenChangeListener(new TokenService.TokenChangeListener() {
             @Override
             public void onTokenChanged(String newToken) {
-                updateUI(!newToken.isEmpty());
+                // Token changes may be delivered from the background refresh
+                SwingUtilities.invokeLater(() -> updateUI(!newToken.isEmpty()));
             }
         });
 
         // Initial UI setup based on token status
         updateUI(!tokenService.getToken().isEmpty());
-
-        // Register views with the view manager
-        ViewManager.getInstance(project).registerView(PersonsPanel.class, personsPanel);
-        ViewManager.getInstance(project).registerView(SitesPanel.class, sitesPanel);
-        ViewManager.getInstance(project).registerView(ChaynsExceptionPanel.class, exceptionPanel);
     }
 
     private void setupUI() {
@@ -84,9 +86,10 @@ class ChaynsToolWindow {
         mainView.add(tabbedPane, BorderLayout.CENTER);
 
         // Add tabs to tabbed pane
-        tabbedPane.addTab("Sites", sitesPanel.getPanel());
-        tabbedPane.addTab("Persons", personsPanel.getPanel());
-        tabbedPane.addTab("Chayns Exceptions", exceptionPanel.getPanel());
+        for (LazyTab<?> tab : tabs) {
+            tabbedPane.addTab(tab.getTitle(), tab.getComponent());
+        }
+        tabbedPane.addChangeListener(e -> loadSelectedTab());
 
         // Add both views to card layout
         panel.add(loginView.getPanel(), LOGIN_CARD);
@@ -95,18 +98,98 @@ class ChaynsToolWindow {
 
     private void updateUI(boolean hasToken) {
         CardLayout layout = (CardLayout) panel.getLayout();
+        showingMain = hasToken;
         if (hasToken) {
             layout.show(panel, MAIN_CARD);
+            loadSelectedTab();
         } else {
             layout.show(panel, LOGIN_CARD);
         }
     }
 
+    private void loadSelectedTab() {
+        int index = tabbedPane.getSelectedIndex();
+        if (index >= 0 && showingMain) {
+            tabs.get(index).load();
+        }
+    }
+
     public JPanel getContent() {
         return panel;
     }
 }
 
+/**
+ * A tab whose controller and view are built the first time it is selected or its view is
+ * requested through the {@link ViewManager}. Until then it shows a loading placeholder.
+ * An optional warm-up runs on a pooled thread first, so expensive reads stay off the EDT.
+ */
+class LazyTab<T> {
+    private final Project project;
+    private final String title;
+    private final Class<T> viewClass;
+    @Nullable
+    private final Runnable warmUp;
+    private final Supplier<T> factory;
+    private final Function<T, JComponent> componentOf;
+    private final JBLoadingPanel placeholder;
+    private boolean loading;
+
+    LazyTab(Project project, String title, Class<T> viewClass, @Nullable Runnable warmUp,
+            Supplier<T> factory, Function<T, JComponent> componentOf) {
+        this.project = project;
+        this.title = title;
+        this.viewClass = viewClass;
+        this.warmUp = warmUp;
+        this.factory = factory;
+        this.componentOf = componentOf;
+        this.placeholder = new JBLoadingPanel(new BorderLayout(), PluginDisposable.getInstance(project));
+
+        ViewManager.getInstance(project).registerViewProvider(viewClass, this::build);
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    JComponent getComponent() {
+        return placeholder;
+    }
+
+    /**
+     * Starts building the view unless that already happened. Called on the EDT.
+     */
+    void load() {
+        if (loading || ViewManager.getInstance(project).getLoadedView(viewClass) != null) return;
+        loading = true;
+
+        if (warmUp == null) {
+            ViewManager.getInstance(project).getView(viewClass);
+            return;
+        }
+
+        placeholder.startLoading();
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                warmUp.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            ApplicationManager.getApplication().invokeLater(
+                    () -> ViewManager.getInstance(project).getView(viewClass), project.getDisposed());
+        });
+    }
+
+    private T build() {
+        T view = factory.get();
+        placeholder.add(componentOf.apply(view), BorderLayout.CENTER);
+        placeholder.stopLoading();
+        placeholder.revalidate();
+        placeholder.repaint();
+        return view;
+    }
+}
+
 class RefreshAction extends AnAction {
     private final Project project;
 
@@ -117,10 +200,10 @@ class RefreshAction extends AnAction {
 
     @Override
     public void actionPerformed(@NotNull AnActionEvent e) {
-        // Reload both sites and persons data
-        SitesPanel sitesPanel = ViewManager.getInstance(project).getView(SitesPanel.class);
-        PersonsPanel personsPanel = ViewManager.getInstance(project).getView(PersonsPanel.class);
-        ChaynsExceptionPanel exceptionPanel = ViewManager.getInstance(project).getView(ChaynsExceptionPanel.class);
+        // Reload the tabs that have been opened; the others load fresh data when first shown
+        SitesPanel sitesPanel = ViewManager.getInstance(project).getLoadedView(SitesPanel.class);
+        PersonsPanel personsPanel = ViewManager.getInstance(project).getLoadedView(PersonsPanel.class);
+        ChaynsExceptionPanel exceptionPanel = ViewManager.getInstance(project).getLoadedView(ChaynsExceptionPanel.class);
 
         if (sitesPanel != null) {
             sitesPanel.reloadData();
@@ -138,13 +221,12 @@ class RefreshAction extends AnAction {
     @Override
     public void update(@NotNull AnActionEvent e) {
         // Only enable if user is logged in
-        TokenService tokenService = TokenService.getInstance(project);
-        e.getPresentation().setEnabled(!tokenService.getToken().isEmpty());
+        e.getPresentation().setEnabled(TokenService.getInstance(project).isLoggedIn());
     }
 
     @Override
     public @NotNull ActionUpdateThread getActionUpdateThread() {
-        return ActionUpdateThread.EDT;
+        return ActionUpdateThread.BGT;
     }
 }
 
@@ -164,13 +246,12 @@ class LogoutAction extends AnAction {
     @Override
     public void update(@NotNull AnActionEvent e) {
         // Only enable if user is logged in
-        TokenService tokenService = TokenService.getInstance(project);
-        e.getPresentation().setEnabled(!tokenService.getToken().isEmpty());
+        e.getPresentation().setEnabled(TokenService.getInstance(project).isLoggedIn());
     }
 
     @Override
     public @NotNull ActionUpdateThread getActionUpdateThread() {
-        return ActionUpdateThread.EDT;
+        return ActionUpdateThread.BGT;
     }
 }
 
@@ -45,7 +45,7 @@ public class ChaynsExceptionPanel {
         messagePanel.setLayout(new BoxLayout(messagePanel, BoxLayout.Y_AXIS));
         messagePanel.setBorder(BorderFactory.createEmptyBorder(20, 0, 10, 10));
 
-        JLabel messageLabel = new JLabel("No namespaces found in appsettings.json");
+        JLabel messageLabel = new JLabel("No namespaces found in any appsettings*.json");
         messageLabel.setForeground(JBColor.RED);
         messageLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
@@ -67,6 +67,17 @@ public class ChaynsExceptionPanel {
                 namespaceLabel.setFont(namespaceLabel.getFont().deriveFont(Font.BOLD));
             }
             namespacesPanel.add(namespaceLabel);
+
+            // Files declaring the namespace
+            List<String> sources = controller.getNamespaceSources(namespace);
+            if (!sources.isEmpty()) {
+                JLabel sourceLabel = new JLabel(String.join(", ", sources));
+                sourceLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+                sourceLabel.setBorder(BorderFactory.createEmptyBorder(0, 12, 0, 0));
+                sourceLabel.setForeground(JBColor.GRAY);
+                sourceLabel.setFont(sourceLabel.getFont().deriveFont(sourceLabel.getFont().getSize() - 1f));
+                namespacesPanel.add(sourceLabel);
+            }
             namespacesPanel.add(Box.createRigidArea(new Dimension(0, 5)));
         }
 
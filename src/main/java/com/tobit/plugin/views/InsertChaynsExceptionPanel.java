@@ -1,16 +1,33 @@
 package com.tobit.plugin.views;
 
+import com.intellij.codeInsight.completion.CompletionParameters;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.TextFieldWithAutoCompletion;
+import com.intellij.ui.TextFieldWithAutoCompletionListProvider;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBTextField;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.ui.JBUI;
 import com.tobit.plugin.controller.ChaynsExceptionController;
-import com.tobit.plugin.models.data.ApiResponse;
 import com.tobit.plugin.models.data.ExceptionItem;
+import com.tobit.plugin.services.ChaynsExceptionIndex;
+import com.tobit.plugin.services.PluginDisposable;
+import com.tobit.plugin.services.PrefixTrie;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class InsertChaynsExceptionPanel {
@@ -19,13 +36,20 @@ public class InsertChaynsExceptionPanel {
     private final ChaynsExceptionController controller;
 
     private JComboBox<String> namespaceCombo;
-    private final JBTextField nameField = new JBTextField();
+    private static final int MAX_COMPLETIONS = 100;
+
+    private TextFieldWithAutoCompletion<String> nameField;
+    // Replaced as a whole, since completion reads it on a background thread
+    private volatile PrefixTrie codeTrie = new PrefixTrie();
     private final JBTextField statusCodeField = new JBTextField();
     private final JComboBox<String> logLevelCombo = new JComboBox<>(new String[]{"Info", "Warn", "Error"});
     private final JBTextField descriptionField = new JBTextField();
     private final JBTextField messageField = new JBTextField();
     private final JButton submitButton = new JButton("Insert Exception");
     private final JLabel namespaceHintLabel = new JLabel();
+    private final JLabel nameHintLabel = new JLabel(" ");
+    // Usage the hint links to, or null
+    private ChaynsExceptionIndex.Usage hintUsage;
 
     public InsertChaynsExceptionPanel(ChaynsExceptionController controller, Editor editor) {
         this.editor = editor;
@@ -43,7 +67,7 @@ public class InsertChaynsExceptionPanel {
         panel.setMinimumSize(new Dimension(300, 0));
         panel.setPreferredSize(new Dimension(400, 150));
 
-        JLabel messageLabel = new JLabel("No namespace found in appsettings.json");
+        JLabel messageLabel = new JLabel("No namespace found in any appsettings*.json");
         messageLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
         JLabel instructionLabel = new JLabel("Add a ChaynsErrors section with Namespaces to continue.");
@@ -61,7 +85,7 @@ public class InsertChaynsExceptionPanel {
     private void setupUI() {
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         panel.setMinimumSize(new Dimension(300, 0));
-        panel.setPreferredSize(new Dimension(400, 330));
+        panel.setPreferredSize(new Dimension(400, 360));
 
         GridBagConstraints constraints = new GridBagConstraints();
         constraints.fill = GridBagConstraints.HORIZONTAL;
@@ -86,9 +110,12 @@ public class InsertChaynsExceptionPanel {
             if (!namespaces.isEmpty()) {
                 namespaceCombo.setSelectedItem(controller.getSelectedNamespace());
             }
-            namespaceCombo.addActionListener(e ->
-                    controller.setSelectedNamespace((String) namespaceCombo.getSelectedItem())
-            );
+            namespaceCombo.addActionListener(e -> {
+                controller.setSelectedNamespace((String) namespaceCombo.getSelectedItem());
+                rebuildCodeTrie();
+                validateName();
+                refreshCodeCatalog();
+            });
             panel.add(namespaceCombo, constraints);
             currentRow++;
         }
@@ -100,9 +127,33 @@ public class InsertChaynsExceptionPanel {
         panel.add(new JBLabel("Name:"), constraints);
         constraints.gridx = 1;
         constraints.weightx = 0.8;
-        nameField.setToolTipText("snake_case. Namespace is automatically loaded.");
+        nameField = createNameField();
+        nameField.setToolTipText("snake_case. Namespace is automatically loaded. Existing codes are suggested while typing.");
+        nameField.addDocumentListener(new DocumentListener() {
+            @Override
+            public void documentChanged(@NotNull DocumentEvent event) {
+                validateName();
+            }
+        });
         panel.add(nameField, constraints);
 
+        // Inline validation hint below the name field
+        constraints.gridy = currentRow++;
+        nameHintLabel.setFont(nameHintLabel.getFont().deriveFont(nameHintLabel.getFont().getSize() - 1f));
+        nameHintLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (hintUsage != null) {
+                    controller.navigateToUsage(hintUsage);
+                    Window window = SwingUtilities.getWindowAncestor(panel);
+                    if (window != null) {
+                        window.dispose();
+                    }
+                }
+            }
+        });
+        panel.add(nameHintLabel, constraints);
+
         // Status Code field
         constraints.gridx = 0;
         constraints.gridy = currentRow++;
@@ -163,6 +214,108 @@ public class InsertChaynsExceptionPanel {
         constraints.anchor = GridBagConstraints.CENTER;
         submitButton.addActionListener(this::onSubmit);
         panel.add(submitButton, constraints);
+
+        rebuildCodeTrie();
+        refreshCodeCatalog();
+    }
+
+    /**
+     * Name field that completes from the in-memory trie of known codes; typing never hits the network.
+     */
+    private TextFieldWithAutoCompletion<String> createNameField() {
+        TextFieldWithAutoCompletionListProvider<String> provider = new TextFieldWithAutoCompletionListProvider<>(null) {
+            @Override
+            public @NotNull Collection<String> getItems(String prefix, boolean cached, CompletionParameters parameters) {
+                return prefix != null ? codeTrie.complete(prefix, MAX_COMPLETIONS) : Collections.emptyList();
+            }
+
+            @Override
+            protected @NotNull String getLookupString(@NotNull String item) {
+                return item;
+            }
+
+            @Override
+            protected @Nullable String getTypeText(@NotNull String item) {
+                return "exists";
+            }
+        };
+        return new TextFieldWithAutoCompletion<>(editor.getProject(), provider, true, null);
+    }
+
+    /**
+     * Builds the trie off the EDT and swaps it in when done. A newer rebuild cancels an older one.
+     */
+    private void rebuildCodeTrie() {
+        ReadAction.nonBlocking(controller::buildCodeTrie)
+                .coalesceBy(this)
+                .expireWith(PluginDisposable.getInstance(editor.getProject()))
+                .submit(AppExecutorUtil.getAppExecutorService())
+                .onSuccess(trie -> codeTrie = trie);
+    }
+
+    /**
+     * Loads the existing codes in the background and re-checks the name once they arrive.
+     */
+    private void refreshCodeCatalog() {
+        controller.refreshCodeCatalog().thenRun(() -> SwingUtilities.invokeLater(() -> {
+            rebuildCodeTrie();
+            validateName();
+        }));
+    }
+
+    /**
+     * Checks the name against the snake_case rule and the local catalog of existing codes.
+     * Runs on every keystroke, so it must not do any I/O; the usage index is queried in the background.
+     */
+    private void validateName() {
+        String name = nameField.getText().trim();
+        boolean duplicate = false;
+        hintUsage = null;
+        nameHintLabel.setCursor(Cursor.getDefaultCursor());
+
+        if (name.isEmpty()) {
+            showNameHint(" ", JBColor.GRAY);
+        } else if (!controller.isValidSnakeCase(name)) {
+            showNameHint("Use snake_case, e.g. invalid_token", JBColor.RED);
+        } else if (controller.isExistingCode(name)) {
+            duplicate = true;
+            showNameHint("This code already exists in " + controller.getSelectedNamespace(), JBColor.RED);
+        } else {
+            if (controller.isCodeCatalogUnavailable()) {
+                showNameHint("Existing codes could not be loaded, duplicates are not checked", JBColor.ORANGE);
+            } else if (!controller.isCodeCatalogLoaded()) {
+                showNameHint("Checking existing codes...", JBColor.GRAY);
+            } else {
+                showNameHint("Code is available", JBColor.GRAY);
+            }
+            checkProjectUsage(name);
+        }
+
+        submitButton.setEnabled(!duplicate);
+    }
+
+    /**
+     * Looks the name up in the usage index off the EDT and, if it is thrown in the project,
+     * replaces the hint with a link to the first usage. A newer keystroke cancels an older lookup.
+     */
+    private void checkProjectUsage(String name) {
+        ReadAction.nonBlocking(() -> controller.findUsages(name))
+                .coalesceBy(this, "usages")
+                .expireWith(PluginDisposable.getInstance(editor.getProject()))
+                .finishOnUiThread(ModalityState.stateForComponent(panel), usages -> {
+                    if (usages.isEmpty() || !name.equals(nameField.getText().trim())) return;
+
+                    // Thrown in the project but unknown to the catalog, e.g. from another namespace
+                    hintUsage = usages.get(0);
+                    nameHintLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+                    showNameHint("<html><u>Already thrown in this project, show usage</u></html>", JBColor.ORANGE);
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private void showNameHint(String text, Color color) {
+        nameHintLabel.setText(text);
+        nameHintLabel.setForeground(color);
     }
 
     private void onSubmit(ActionEvent e) {
@@ -183,6 +336,11 @@ public class InsertChaynsExceptionPanel {
                 return;
             }
 
+            if (controller.isExistingCode(name)) {
+                controller.showErrorDialog(panel, "An exception with this name already exists", "Validation Error");
+                return;
+            }
+
             String description = descriptionField.getText().trim();
             if (description.isEmpty()) {
                 controller.showErrorDialog(panel, "Description is required", "Validation Error");
@@ -214,20 +372,8 @@ public class InsertChaynsExceptionPanel {
                     message
             );
 
-            // Call controller to create the exception
-            ApiResponse response = controller.createException(newException);
-
-            if (!response.isSuccess()) {
-                var errorMessage = "Error creating exception: " + response.data();
-                if (response.data().contains("chayns/auth/package/at_least_one_group_required")) {
-                    errorMessage = "You are not allowed to create an exception. Contact an administrator of dev.tobit.com";
-                }
-                controller.showErrorDialog(panel, errorMessage, "Error");
-                return;
-            }
-
-            // Insert the exception in editor
-            controller.insertException(editor, newException.code());
+            // Insert the exception right away; it is created in the background and removed again if rejected
+            controller.submitException(editor, newException);
 
             // Close the dialog
             Window window = SwingUtilities.getWindowAncestor(panel);
@@ -23,7 +23,6 @@ public class LoginPanel implements TokenService.TokenChangeListener {
         this.tokenService = TokenService.getInstance(project);
 
         controller.addTokenChangeListener(this);
-        tokenService.addTokenChangeListener(this);
         setupUI();
     }
 
@@ -90,9 +89,8 @@ public class LoginPanel implements TokenService.TokenChangeListener {
             button.setEnabled(false);
             button.setText("Logging in...");
 
-            // Run login process asynchronously to prevent UI freezing
-            SwingUtilities.invokeLater(() -> {
-                boolean success = controller.getToken();
+            // Login runs as a cancellable background task; the callback arrives on the EDT
+            controller.login(success -> {
                 if (!success) {
                     showError("Remote login failed or was cancelled");
                     resetLoginButton();
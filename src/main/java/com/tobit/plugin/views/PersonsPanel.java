@@ -20,7 +20,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Panel for searching and managing chayns persons.
@@ -287,6 +289,7 @@ public class PersonsPanel {
     public class PersonTableModel extends AbstractTableModel {
         private final List<Pair<Person, Boolean>> persons = new ArrayList<>(); // Person and saved status (null for separator)
         private final String[] columns = {"User Name", "Person ID", "User ID"};
+        private static final String LOADING_TEXT = "Loading…";
 
         /**
          * Updates the model with new data
@@ -294,22 +297,23 @@ public class PersonsPanel {
         public void updateData(List<Person> savedPersons, List<Person> searchResults) {
             persons.clear();
 
+            // Persons are matched by personId; user names are not unique
+            Set<String> savedIds = new HashSet<>(savedPersons.size() * 2);
+            for (Person savedPerson : savedPersons) {
+                savedIds.add(savedPerson.personId());
+            }
+            Set<String> resultIds = new HashSet<>(searchResults.size() * 2);
+
             // Add search results if available
             for (Person person : searchResults) {
-                persons.add(new Pair<>(person, controller.isPersonSaved(person.personId())));
+                resultIds.add(person.personId());
+                persons.add(new Pair<>(person, savedIds.contains(person.personId())));
             }
 
             // Find remaining saved persons not in search results
             List<Person> remainingSavedPersons = new ArrayList<>();
             for (Person savedPerson : savedPersons) {
-                boolean found = false;
-                for (Person searchResult : searchResults) {
-                    if (savedPerson.personId().equals(searchResult.personId())) {
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
+                if (!resultIds.contains(savedPerson.personId())) {
                     remainingSavedPersons.add(savedPerson);
                 }
             }
@@ -370,6 +374,15 @@ public class PersonsPanel {
                 return columnIndex == 0 ? "Saved Persons" : "";
             }
 
+            // Rows still being looked up only know their personId
+            if (person.isPending()) {
+                return switch (columnIndex) {
+                    case 0 -> LOADING_TEXT;
+                    case 1 -> person.personId();
+                    default -> "";
+                };
+            }
+
             return switch (columnIndex) {
                 case 0 -> person.userName();
                 case 1 -> person.personId();
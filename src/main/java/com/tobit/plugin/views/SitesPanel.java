@@ -8,9 +8,10 @@ import com.intellij.ui.components.JBTabbedPane;
 import com.intellij.ui.table.JBTable;
 import com.tobit.plugin.controller.SitesController;
 import com.tobit.plugin.models.data.LocationItem;
+import com.tobit.plugin.models.data.Site;
 import com.tobit.plugin.tables.SitesTable;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import org.jetbrains.annotations.NotNull;
-import org.json.JSONObject;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -36,7 +37,7 @@ public class SitesPanel {
         return panel;
     }
 
-    public void updateData(List<LocationItem> savedSites, List<JSONObject> searchResults) {
+    public void updateData(List<LocationItem> savedSites, List<Site> searchResults) {
         resultModel.updateData(savedSites, searchResults);
     }
 
@@ -153,36 +154,30 @@ public class SitesPanel {
     }
 
     public static class SiteTableModel extends AbstractTableModel {
-        private final List<Pair<JSONObject, Boolean>> sites = new ArrayList<>(); // Site and saved status (null for separator)
+        private final List<Pair<Site, Boolean>> sites = new ArrayList<>(); // Site and saved status (null for separator)
         private final String[] columns = {"Location Name", "Site ID", "Location ID", "Location Person ID"};
+        private static final String LOADING_TEXT = "Loading…";
 
-        public void updateData(List<LocationItem> savedSites, List<JSONObject> searchResults) {
+        public void updateData(List<LocationItem> savedSites, List<Site> searchResults) {
             sites.clear();
 
+            // Sites are matched by locationId, since saved entries may lack a siteId
+            IntOpenHashSet savedIds = new IntOpenHashSet(savedSites.size());
+            for (LocationItem savedSite : savedSites) {
+                savedIds.add(savedSite.getId());
+            }
+            IntOpenHashSet resultIds = new IntOpenHashSet(searchResults.size());
+
             // Add search results if available
-            for (JSONObject site : searchResults) {
-                int locationId = site.optInt("locationId", 0);
-                boolean saved = false;
-                for (LocationItem savedSite : savedSites) {
-                    if (savedSite.getId() == locationId) {
-                        saved = true;
-                        break;
-                    }
-                }
-                sites.add(new Pair<>(site, saved));
+            for (Site site : searchResults) {
+                resultIds.add(site.locationId());
+                sites.add(new Pair<>(site, savedIds.contains(site.locationId())));
             }
 
             // Find remaining saved sites not in search results
             List<LocationItem> remainingSavedSites = new ArrayList<>();
             for (LocationItem savedSite : savedSites) {
-                boolean found = false;
-                for (JSONObject searchResult : searchResults) {
-                    if (searchResult.optInt("locationId", 0) == savedSite.getId()) {
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
+                if (!resultIds.contains(savedSite.getId())) {
                     remainingSavedSites.add(savedSite);
                 }
             }
@@ -194,12 +189,7 @@ public class SitesPanel {
 
             // Add saved sites not in search results
             for (LocationItem locationItem : remainingSavedSites) {
-                JSONObject jsonSite = new JSONObject();
-                jsonSite.put("locationName", locationItem.getName());
-                jsonSite.put("locationId", locationItem.getId());
-                jsonSite.put("siteId", locationItem.getSiteId());
-                jsonSite.put("locationPersonId", locationItem.getLocationPersonId());
-                sites.add(new Pair<>(jsonSite, true));
+                sites.add(new Pair<>(Site.fromLocationItem(locationItem), true));
             }
 
             fireTableDataChanged();
@@ -209,8 +199,8 @@ public class SitesPanel {
             return sites.get(rowIndex).first == null;
         }
 
-        public JSONObject getSiteAt(int rowIndex) {
-            JSONObject site = sites.get(rowIndex).first;
+        public Site getSiteAt(int rowIndex) {
+            Site site = sites.get(rowIndex).first;
             if (site == null) {
                 throw new IllegalStateException("No site at index " + rowIndex);
             }
@@ -234,19 +224,20 @@ public class SitesPanel {
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
-            Pair<JSONObject, Boolean> pair = sites.get(rowIndex);
-            JSONObject site = pair.first;
+            Pair<Site, Boolean> pair = sites.get(rowIndex);
+            Site site = pair.first;
 
             // Handle separator row
             if (site == null) {
                 return columnIndex == 0 ? "Saved Sites" : "";
             }
 
+            // Rows still waiting for their details show a placeholder for missing values
             return switch (columnIndex) {
-                case 0 -> site.optString("locationName", site.optString("name", ""));
-                case 1 -> site.optString("siteId", "");
-                case 2 -> Integer.toString(site.optInt("locationId", 0));
-                case 3 -> site.optString("locationPersonId", "");
+                case 0 -> site.locationName().isEmpty() && site.pending() ? LOADING_TEXT : site.locationName();
+                case 1 -> site.siteId();
+                case 2 -> site.locationId() == 0 && site.pending() ? "" : Integer.toString(site.locationId());
+                case 3 -> site.locationPersonId();
                 default -> "";
             };
         }